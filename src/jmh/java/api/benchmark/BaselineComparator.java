@@ -0,0 +1,113 @@
+package api.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BaselineComparator - compares a JMH JSON result file with a stored baseline and fails when a benchmark has
+ * become slower, or allocates more per operation, by more than the allowed fraction.
+ * <p/>
+ * Benchmarks are matched on name and parameters; those present in only one of the files are reported and
+ * otherwise ignored. When there is no baseline, or when asked to update it, the result is copied over the
+ * baseline instead of compared.
+ * <p/>
+ * Usage: BaselineComparator result.json baseline.json threshold update
+ */
+public class BaselineComparator {
+
+    private static final String ALLOCATION_METRIC = "\u00b7gc.alloc.rate.norm";
+
+    /**
+     * allocation differences below this many bytes per operation are treated as noise
+     */
+    private static final double ALLOCATION_NOISE_BYTES = 16;
+
+    public static void main(String[] args) throws IOException {
+
+        File result = new File(args[0]);
+        File baseline = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean update = Boolean.parseBoolean(args[3]);
+
+        if (!result.isFile()) {
+            throw new IllegalStateException("No benchmark result found at " + result);
+        }
+        if (update || !baseline.isFile()) {
+            Files.copy(result.toPath(), baseline.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Benchmark baseline written to " + baseline);
+            return;
+        }
+
+        int regressions = compare(read(result), read(baseline), threshold);
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark regression(s) beyond " + (int) (threshold * 100) + "%");
+            System.exit(1);
+        }
+        System.out.println("No benchmark regressions beyond " + (int) (threshold * 100) + "%");
+    }
+
+    static int compare(Map<String, JsonNode> results, Map<String, JsonNode> baselines, double threshold) {
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode baseline = baselines.get(entry.getKey());
+            if (baseline == null) {
+                System.out.println(String.format("NEW        %s", entry.getKey()));
+                continue;
+            }
+            JsonNode result = entry.getValue();
+
+            // Throughput is better when higher, every other mode reports time so is better when lower
+            double score = result.path("primaryMetric").path("score").asDouble();
+            double baselineScore = baseline.path("primaryMetric").path("score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(result.path("mode").asText());
+            double change = baselineScore == 0 ? 0 : (score - baselineScore) / baselineScore;
+            boolean slower = higherIsBetter ? change < -threshold : change > threshold;
+
+            double allocation = result.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble();
+            double baselineAllocation = baseline.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble();
+            boolean allocates = allocation - baselineAllocation > ALLOCATION_NOISE_BYTES
+                    && allocation > baselineAllocation * (1 + threshold);
+
+            if (slower || allocates) {
+                regressions++;
+            }
+            System.out.println(String.format("%-10s %s score %.3f -> %.3f %s (%+.1f%%), alloc %.0f -> %.0f B/op",
+                    slower || allocates ? "REGRESSION" : "OK", entry.getKey(), baselineScore, score,
+                    result.path("primaryMetric").path("scoreUnit").asText(), change * 100,
+                    baselineAllocation, allocation));
+        }
+        for (String key : baselines.keySet()) {
+            if (!results.containsKey(key)) {
+                System.out.println(String.format("MISSING    %s", key));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Read a JMH result file, keyed by benchmark name and parameters
+     */
+    static Map<String, JsonNode> read(File file) throws IOException {
+
+        Map<String, JsonNode> benchmarks = new LinkedHashMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(benchmark.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = benchmark.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            benchmarks.put(key.toString(), benchmark);
+        }
+        return benchmarks;
+    }
+}
@@ -0,0 +1,66 @@
+package api.business.model;
+
+import api.JacksonConfig;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialisation of a {@link Response} with the application's JSON configuration, written to a stream that
+ * discards the bytes so that only the encoding is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int rows;
+
+    private ObjectWriter writer;
+
+    private Response response;
+
+    private final OutputStream discard = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup
+    public void setup() {
+        writer = new JacksonConfig().jacksonBuilder().build().writerFor(Response.class);
+        List<Model> models = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            models.add(new Model("name " + i, i + " High Street", "Town", "County", "Region", null, "AB1 2CD"));
+        }
+        response = new Response(models);
+    }
+
+    @Benchmark
+    public void serialise() throws IOException {
+        writer.writeValue(discard, response);
+    }
+}
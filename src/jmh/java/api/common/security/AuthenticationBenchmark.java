@@ -0,0 +1,71 @@
+package api.common.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The authentication of a request with the same credentials as the last, checked by the in-memory users each time
+ * compared with through the credential cache, with passwords held as plain text and with bcrypt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    @Param({"plain", "bcrypt"})
+    private String encoder;
+
+    private AuthenticationProvider uncached;
+
+    private AuthenticationProvider cached;
+
+    @Setup
+    public void setup() {
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        String password = "password";
+        if ("bcrypt".equals(encoder)) {
+            BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+            provider.setPasswordEncoder(passwordEncoder);
+            password = passwordEncoder.encode(password);
+        }
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(new Properties());
+        users.createUser(User.withUsername("user").password(password).roles("USER").build());
+        provider.setUserDetailsService(users);
+
+        uncached = provider;
+        cached = new CachingAuthenticationProvider(provider, 100, 300);
+    }
+
+    @Benchmark
+    public Authentication uncached() {
+        return uncached.authenticate(new UsernamePasswordAuthenticationToken("user", "password"));
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return cached.authenticate(new UsernamePasswordAuthenticationToken("user", "password"));
+    }
+}
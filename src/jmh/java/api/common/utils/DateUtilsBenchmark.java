@@ -0,0 +1,79 @@
+package api.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    private static final String DATE_FORMAT_MASK = "dd-MM-yyyy";
+
+    private String dateString = "17-10-2017";
+
+    private String invalidDateString = "31-02-2017";
+
+    private Date date;
+
+    private long[] epochMillis;
+
+    @Setup
+    public void setup() {
+        date = DateUtils.getDate(dateString, DATE_FORMAT_MASK);
+        // Ten years of daily dates, as a bulk load sorted by date would present them
+        epochMillis = new long[3650];
+        for (int i = 0; i < epochMillis.length; i++) {
+            epochMillis[i] = date.getTime() - i * 86400000L;
+        }
+    }
+
+    @Benchmark
+    public String getTaxYear() {
+        return DateUtils.getTaxYear(date);
+    }
+
+    @Benchmark
+    public String getCurrentTaxYear() {
+        return DateUtils.getCurrentTaxYear();
+    }
+
+    @Benchmark
+    public int[] getTaxYears() {
+        return DateUtils.getTaxYears(epochMillis);
+    }
+
+    @Benchmark
+    public Date getDate() {
+        return DateUtils.getDate(dateString, DATE_FORMAT_MASK);
+    }
+
+    @Benchmark
+    public boolean dateValidator() {
+        return DateUtils.dateValidator(dateString, DATE_FORMAT_MASK);
+    }
+
+    @Benchmark
+    public boolean dateValidatorInvalid() {
+        return DateUtils.dateValidator(invalidDateString, DATE_FORMAT_MASK);
+    }
+
+    @Benchmark
+    public String dateToString() {
+        return DateUtils.dateToString(date, DATE_FORMAT_MASK);
+    }
+}
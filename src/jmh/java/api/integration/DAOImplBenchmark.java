@@ -0,0 +1,36 @@
+package api.integration;
+
+import api.business.model.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The row mapping in the stub DAO. logback-benchmark.xml switches off logging below WARN so that only the mapping
+ * is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DAOImplBenchmark {
+
+    private final DAOImpl dao = new DAOImpl();
+
+    private String id = "AB123456";
+
+    @Benchmark
+    public Response getInfo() {
+        return dao.getInfo(id);
+    }
+}
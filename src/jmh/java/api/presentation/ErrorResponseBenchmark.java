@@ -0,0 +1,106 @@
+package api.presentation;
+
+import api.JacksonConfig;
+import api.business.Service;
+import api.business.model.BatchResponse;
+import api.business.model.Model;
+import api.business.model.Response;
+import api.common.exceptions.BadRequestException;
+import api.presentation.controller.Controller;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A request for a valid id compared with one rejected as a bad request: the controller call, the exception handler
+ * where there is one and the serialisation of the body, as the message converter would write it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorResponseBenchmark {
+
+    private Controller controller;
+
+    private LoggingResponseEntityExceptionHandler handler;
+
+    private ObjectMapper objectMapper;
+
+    private MockHttpServletRequest servletRequest;
+
+    private ServletWebRequest webRequest;
+
+    @Setup
+    public void setup() {
+
+        objectMapper = new JacksonConfig().jacksonBuilder().build();
+        final Response response = new Response(Collections.singletonList(
+                new Model("name", "al1", "al2", "al3", "al4", "al5", "pc")));
+
+        controller = new Controller();
+        ReflectionTestUtils.setField(controller, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(controller, "service", new Service() {
+            @Override
+            public Response getInfo(String id) {
+                return response;
+            }
+
+            @Override
+            public ListenableFuture<Response> getInfoAsync(String id) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public BatchResponse getInfoBatch(Collection<String> ids) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void streamInfo(String id, Consumer<Model> consumer) {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        handler = new LoggingResponseEntityExceptionHandler();
+        servletRequest = new MockHttpServletRequest("GET", "/api/info");
+        servletRequest.addHeader("Accept", "application/json");
+        servletRequest.addHeader("CorrelationId", "benchmark");
+        webRequest = new ServletWebRequest(servletRequest);
+    }
+
+    @Benchmark
+    public byte[] success() throws IOException {
+        return objectMapper.writeValueAsBytes(controller.getInfo("benchmark", "AB1").getBody());
+    }
+
+    @Benchmark
+    public byte[] badRequest() throws IOException {
+        try {
+            controller.getInfo("benchmark", "1");
+        } catch (BadRequestException e) {
+            return objectMapper.writeValueAsBytes(handler.handle(e, webRequest, servletRequest).getBody());
+        }
+        throw new IllegalStateException("Expected a bad request");
+    }
+}
@@ -0,0 +1,39 @@
+package api.presentation.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The id check made by each request to the controller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdValidationBenchmark {
+
+    private String validId = "AB123456";
+
+    private String invalidId = "ABCD1234";
+
+    @Benchmark
+    public boolean validId() {
+        return Controller.ID_PATTERN.matcher(validId).matches();
+    }
+
+    @Benchmark
+    public boolean invalidId() {
+        return Controller.ID_PATTERN.matcher(invalidId).matches();
+    }
+}
@@ -1,12 +1,19 @@
 package api;
 
+import api.common.security.CachingAuthenticationProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configurers.GlobalAuthenticationConfigurerAdapter;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.util.Properties;
 
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @Configuration
@@ -28,10 +35,36 @@ public class ApplicationSecurityConfig extends GlobalAuthenticationConfigurerAda
 	@Value("${appsecurity.appl_user.password}")
 	private String APIUserPwd;
 
+	@Value("${auth_cache.enabled:false}")
+	private boolean authCacheEnabled;
+
+	@Value("${auth_cache.maximum_size:10000}")
+	private long authCacheMaximumSize;
+
+	@Value("${auth_cache.expire_after_write_seconds:300}")
+	private long authCacheExpireAfterWriteSeconds;
+
 	@Override
 	public void init(AuthenticationManagerBuilder auth) throws Exception {
-		auth.inMemoryAuthentication().withUser(adminUser).password(adminPwd).roles(ROLE_ADMIN, ROLE_USER)
-		.and().withUser(APIUser).password(APIUserPwd).roles(ROLE_USER);
+		auth.authenticationProvider(cachingAuthenticationProvider());
+	}
+
+	/**
+	 * Checks credentials against the in-memory users. When the cache is enabled, those verified are remembered so
+	 * that clients sending the same credentials on every request are not checked each time; the passwords here are
+	 * plain text and cheaper to check than to look up, so it is only worth enabling with a slow password encoder
+	 */
+	@Bean
+	public CachingAuthenticationProvider cachingAuthenticationProvider() {
+
+		InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(new Properties());
+		users.createUser(User.withUsername(adminUser).password(adminPwd).roles(ROLE_ADMIN, ROLE_USER).build());
+		users.createUser(User.withUsername(APIUser).password(APIUserPwd).roles(ROLE_USER).build());
+
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(users);
+		return new CachingAuthenticationProvider(provider, authCacheEnabled ? authCacheMaximumSize : 0,
+				authCacheExpireAfterWriteSeconds);
 	}
 	
 }
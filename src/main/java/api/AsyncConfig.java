@@ -0,0 +1,102 @@
+package api;
+
+import api.common.utils.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+
+@Configuration
+public class AsyncConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+	@Value("${dao_executor.core_pool_size:10}")
+	int corePoolSize;
+
+	@Value("${dao_executor.max_pool_size:20}")
+	int maxPoolSize;
+
+	@Value("${dao_executor.queue_capacity:100}")
+	int queueCapacity;
+
+	@Value("${response_cache.refresh.max_concurrent:2}")
+	int refreshMaxConcurrent;
+
+	@Value("${response_cache.refresh.queue_capacity:50}")
+	int refreshQueueCapacity;
+
+	/**
+	 * Bounded executor that asynchronous requests run their DAO work on, sized independently of the Tomcat
+	 * connector. Work submitted when the queue is full is rejected rather than queued without limit. Each task runs
+	 * with the logging MDC of the thread that submitted it, so its log lines carry the same CorrelationId, and with
+	 * the same request deadline.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor daoExecutor() {
+
+		logger.debug("DAO executor created with core size {}, max size {} and queue capacity {}",
+				corePoolSize, maxPoolSize, queueCapacity);
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(corePoolSize);
+		executor.setMaxPoolSize(maxPoolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("dao-");
+		executor.setWaitForTasksToCompleteOnShutdown(false);
+		executor.setTaskDecorator(AsyncConfig::withRequestContext);
+		return executor;
+	}
+
+	/**
+	 * Small fixed size executor that cached responses are reloaded on in the background, so that refreshes never
+	 * take more than a few DAO connections. Refreshes submitted when the queue is full are rejected and skipped.
+	 * A refresh carries the MDC of the request that started it but not its deadline, as it serves later requests.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor refreshExecutor() {
+
+		logger.debug("Refresh executor created with size {} and queue capacity {}", refreshMaxConcurrent, refreshQueueCapacity);
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(refreshMaxConcurrent);
+		executor.setMaxPoolSize(refreshMaxConcurrent);
+		executor.setQueueCapacity(refreshQueueCapacity);
+		executor.setThreadNamePrefix("refresh-");
+		executor.setWaitForTasksToCompleteOnShutdown(false);
+		executor.setTaskDecorator(AsyncConfig::withMdc);
+		return executor;
+	}
+
+	private static Runnable withRequestContext(Runnable task) {
+		Deadline deadline = Deadline.current();
+		Runnable withMdc = withMdc(task);
+		return () -> {
+			Deadline.set(deadline);
+			try {
+				withMdc.run();
+			} finally {
+				Deadline.set(null);
+			}
+		};
+	}
+
+	private static Runnable withMdc(Runnable task) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		return () -> {
+			if (context != null) {
+				MDC.setContextMap(context);
+			}
+			try {
+				task.run();
+			} finally {
+				MDC.clear();
+			}
+		};
+	}
+}
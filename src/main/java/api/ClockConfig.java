@@ -0,0 +1,41 @@
+package api;
+
+import api.common.utils.AppClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+
+@Configuration
+public class ClockConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClockConfig.class);
+
+	@Value("${clock.tick_ms:0}")
+	long tickMillis;
+
+	/**
+	 * The application clock, installed as the default so that the static DateUtils methods use the same instance and
+	 * the session date is parsed once. A positive tick_ms keeps its coarse time current from a background thread; 0
+	 * leaves it reading the system clock.
+	 */
+	@Bean(destroyMethod = "stop")
+	public AppClock appClock() {
+
+		AppClock clock = AppClock.getDefault();
+		AppClock.setDefault(clock);
+		if (tickMillis > 0) {
+			logger.debug("Application clock ticking every {} ms", tickMillis);
+			clock.start(tickMillis);
+		}
+		return clock;
+	}
+
+	@PreDestroy
+	public void uninstallClock() {
+		AppClock.setDefault(null);
+	}
+}
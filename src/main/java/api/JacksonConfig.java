@@ -1,8 +1,15 @@
 package api;
 
+import api.presentation.CborHttpMessageConverter;
+import api.presentation.NdjsonHttpMessageConverter;
+import api.presentation.SmileHttpMessageConverter;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
@@ -12,6 +19,12 @@ public class JacksonConfig {
 
 	private static Logger logger = LoggerFactory.getLogger(JacksonConfig.class);
 
+	/**
+	 * Indented JSON is easier to read but larger, the production profile turns it off
+	 */
+	@Value("${spring.jackson.serialization.INDENT_OUTPUT:false}")
+	private boolean indentOutput;
+
 	@Bean
 	public Jackson2ObjectMapperBuilder jacksonBuilder() {
 
@@ -19,8 +32,36 @@ public class JacksonConfig {
 
 		Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
 		builder.serializationInclusion(JsonInclude.Include.NON_NULL)
-				.indentOutput(true);
+				.indentOutput(indentOutput);
 		return builder;
 	}
 
+	/**
+	 * Converter for newline delimited JSON, picked up by Spring Boot alongside the default converters
+	 */
+	@Bean
+	public NdjsonHttpMessageConverter ndjsonHttpMessageConverter(Jackson2ObjectMapperBuilder jacksonBuilder) {
+		return new NdjsonHttpMessageConverter(jacksonBuilder.build());
+	}
+
+	/**
+	 * Smile converter, configured like the JSON one, for callers sending Accept: application/x-jackson-smile
+	 */
+	@Bean
+	public SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder jacksonBuilder) {
+		ObjectMapper objectMapper = new ObjectMapper(new SmileFactory());
+		jacksonBuilder.configure(objectMapper);
+		return new SmileHttpMessageConverter(objectMapper);
+	}
+
+	/**
+	 * CBOR converter, configured like the JSON one, for callers sending Accept: application/cbor
+	 */
+	@Bean
+	public CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder jacksonBuilder) {
+		ObjectMapper objectMapper = new ObjectMapper(new CBORFactory());
+		jacksonBuilder.configure(objectMapper);
+		return new CborHttpMessageConverter(objectMapper);
+	}
+
 }
\ No newline at end of file
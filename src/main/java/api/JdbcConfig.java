@@ -0,0 +1,87 @@
+package api;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Connection pool and JdbcTemplate for the JDBC DAO, only created when dao.type=jdbc.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dao.type", havingValue = "jdbc")
+public class JdbcConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(JdbcConfig.class);
+
+	@Value("${dao.jdbc.url}")
+	String url;
+
+	@Value("${dao.jdbc.driver_class_name}")
+	String driverClassName;
+
+	@Value("${dao.jdbc.username:}")
+	String username;
+
+	@Value("${dao.jdbc.password:}")
+	String password;
+
+	@Value("${dao.jdbc.max_active:50}")
+	int maxActive;
+
+	@Value("${dao.jdbc.min_idle:10}")
+	int minIdle;
+
+	@Value("${dao.jdbc.max_wait_ms:1000}")
+	int maxWaitMs;
+
+	@Value("${dao.jdbc.validation_query:SELECT 1}")
+	String validationQuery;
+
+	@Value("${dao.jdbc.statement_cache_size:50}")
+	int statementCacheSize;
+
+	@Value("${dao.jdbc.fetch_size:500}")
+	int fetchSize;
+
+	@Value("${dao.jdbc.query_timeout_seconds:5}")
+	int queryTimeoutSeconds;
+
+	@Bean(destroyMethod = "close")
+	public DataSource dataSource() {
+
+		logger.debug("JDBC pool created for {} with max active {} and statement cache size {}", url, maxActive, statementCacheSize);
+
+		PoolProperties properties = new PoolProperties();
+		properties.setUrl(url);
+		properties.setDriverClassName(driverClassName);
+		properties.setUsername(username);
+		properties.setPassword(password);
+		properties.setMaxActive(maxActive);
+		properties.setMaxIdle(maxActive);
+		properties.setMinIdle(minIdle);
+		properties.setInitialSize(minIdle);
+		properties.setMaxWait(maxWaitMs);
+		// Validate idle connections in the background rather than on every borrow
+		properties.setTestOnBorrow(false);
+		properties.setTestWhileIdle(true);
+		properties.setValidationQuery(validationQuery);
+		properties.setValidationInterval(30000);
+		// Prepared statements are cached per pooled connection
+		properties.setJdbcInterceptors(String.format("StatementCache(prepared=true,callable=false,max=%d)", statementCacheSize));
+		return new DataSource(properties);
+	}
+
+	@Bean
+	public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(fetchSize);
+		jdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+		return jdbcTemplate;
+	}
+}
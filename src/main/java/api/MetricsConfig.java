@@ -0,0 +1,31 @@
+package api;
+
+import api.business.Service;
+import api.common.metrics.ApiMetrics;
+import api.common.metrics.TimingBeanPostProcessor;
+import api.integration.DAO;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Configuration
+public class MetricsConfig {
+
+	/**
+	 * Times the request mappings of the controllers and the methods of the service and DAO, publishing the results
+	 * through {@link ApiMetrics}. Static so the post processor is registered without creating this configuration, and
+	 * given a factory for the metrics so that they are created later as an ordinary bean.
+	 */
+	@Bean
+	public static TimingBeanPostProcessor timingBeanPostProcessor(ObjectFactory<ApiMetrics> apiMetrics) {
+
+		TimingBeanPostProcessor processor = new TimingBeanPostProcessor(apiMetrics);
+		processor.addLayer("controller", new AnnotationMatchingPointcut(RestController.class, RequestMapping.class));
+		processor.addLayer("service", TimingBeanPostProcessor.forInterface(Service.class));
+		processor.addLayer("dao", TimingBeanPostProcessor.forInterface(DAO.class));
+		return processor;
+	}
+}
@@ -1,6 +1,12 @@
 package api;
 
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.valves.AccessLogValve;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http11.Http11Nio2Protocol;
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.apache.coyote.http2.Http2Protocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,11 +36,50 @@ public class TomcatConfig extends WebMvcConfigurerAdapter implements EmbeddedSer
 	@Value("${access_logs.limit ?: 30}")
 	long daysBack;
 
+	/** nio or nio2 */
+	@Value("${connector.protocol:nio}")
+	String protocol = "nio";
+
+	@Value("${connector.acceptor_threads:1}")
+	int acceptorThreads = 1;
+
+	/** how long a kept alive connection waits for its next request, -1 to use server.connection-timeout */
+	@Value("${connector.keep_alive_timeout_ms:-1}")
+	int keepAliveTimeoutMs = -1;
+
+	/** -1 for no limit */
+	@Value("${connector.max_keep_alive_requests:100}")
+	int maxKeepAliveRequests = 100;
+
+	@Value("${connector.tcp_no_delay:true}")
+	boolean tcpNoDelay = true;
+
+	/** socket buffer sizes in bytes, 0 to leave them to the operating system */
+	@Value("${connector.socket_receive_buffer:0}")
+	int socketReceiveBuffer;
+
+	@Value("${connector.socket_send_buffer:0}")
+	int socketSendBuffer;
+
+	/** allow callers to use HTTP/2 without TLS; the request carrying an Upgrade header loses its query string */
+	@Value("${connector.h2c:false}")
+	boolean h2c;
+
 	@Override
 	public void customize(ConfigurableEmbeddedServletContainer container) {
 		
 		if (container instanceof TomcatEmbeddedServletContainerFactory) {
             TomcatEmbeddedServletContainerFactory factory = (TomcatEmbeddedServletContainerFactory) container;
+            if ("nio2".equalsIgnoreCase(protocol)) {
+                factory.setProtocol(Http11Nio2Protocol.class.getName());
+            } else {
+                if (!"nio".equalsIgnoreCase(protocol)) {
+                    logger.error("Unknown connector protocol {}, using nio", protocol);
+                }
+                factory.setProtocol(Http11NioProtocol.class.getName());
+            }
+            factory.addConnectorCustomizers(this::customizeConnector);
+
             AccessLogValve accessLogValve = new AccessLogValve();
             accessLogValve.setDirectory(logDir);
             accessLogValve.setPrefix(ACCESS);
@@ -46,6 +91,39 @@ public class TomcatConfig extends WebMvcConfigurerAdapter implements EmbeddedSer
             logger.error("Configuration of access log valve failed. Access log will be created in default location.");
         }
 	}
+
+	/**
+	 * Applies the connector settings Boot's server.tomcat properties do not cover: the acceptor threads, how long
+	 * and for how many requests connections are kept alive, the socket options and the h2c upgrade. The request
+	 * threads, connections, accept count and connection timeout are left to server.tomcat and server.connection-timeout.
+	 */
+	void customizeConnector(Connector connector) {
+
+		ProtocolHandler handler = connector.getProtocolHandler();
+		if (handler instanceof AbstractHttp11Protocol) {
+			AbstractHttp11Protocol<?> http = (AbstractHttp11Protocol<?>) handler;
+			http.setAcceptorThreadCount(acceptorThreads);
+			if (keepAliveTimeoutMs >= 0) {
+				http.setKeepAliveTimeout(keepAliveTimeoutMs);
+			}
+			http.setMaxKeepAliveRequests(maxKeepAliveRequests);
+			http.setTcpNoDelay(tcpNoDelay);
+		} else {
+			logger.error("Connector protocol {} not configured", handler.getClass().getName());
+		}
+		if (socketReceiveBuffer > 0) {
+			connector.setProperty("socket.rxBufSize", Integer.toString(socketReceiveBuffer));
+		}
+		if (socketSendBuffer > 0) {
+			connector.setProperty("socket.txBufSize", Integer.toString(socketSendBuffer));
+		}
+		if (h2c) {
+			connector.addUpgradeProtocol(new Http2Protocol());
+		}
+
+		logger.info("Connector {} with {} acceptor threads, keep alive {} requests{}",
+				handler.getClass().getSimpleName(), acceptorThreads, maxKeepAliveRequests, h2c ? ", h2c enabled" : "");
+	}
 	
 	/**
 	 * Scheduler to clean boot-access logs.
@@ -0,0 +1,23 @@
+package api;
+
+import api.presentation.RateLimitInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+@Configuration
+public class WebConfig extends WebMvcConfigurerAdapter {
+
+	@Autowired
+	private RateLimitInterceptor rateLimitInterceptor;
+
+	/**
+	 * Requests to the API are rate limited once authenticated and before the controller is called, so that a
+	 * refused request costs no service or DAO work. The actuator endpoints are not limited.
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/api/**");
+	}
+}
@@ -0,0 +1,137 @@
+package api.business;
+
+import api.common.exceptions.BadRequestException;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.resilience.AdaptiveLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * ConcurrencyLimit - an {@link AdaptiveLimiter} around lookups that have to go to the DAO, so the number in
+ * progress follows what the backend can currently answer in good time instead of a fixed pool size.
+ * <p/>
+ * A lookup over the limit is refused with a {@link ServiceUnavailableException} straight away rather than queued.
+ * Only the time taken by calls that reach the DAO and are answered, including those it had no data for, adjusts
+ * the limit. Lookups answered from the cache or with a last known good response, failures and refusals do not, as
+ * their times say nothing about how long the backend takes to answer; were they counted, an outage served from the
+ * cache would pull the round trip times down to microseconds and the limit would collapse once the backend
+ * recovered.
+ * <p/>
+ * Published on the actuator metrics endpoint as gauge.service.concurrency_limit.limit and in_flight,
+ * counter.service.concurrency_limit.rejected, and the short and long term round trip times in milliseconds as
+ * gauge.service.concurrency_limit.rtt.short and rtt.long.
+ */
+@Component
+public class ConcurrencyLimit implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimit.class);
+
+    private static final String REFUSED_MESSAGE = "Too many requests in progress";
+
+    private final boolean enabled;
+
+    private final AdaptiveLimiter limiter;
+
+    private final LongSupplier nanoTime;
+
+    @Autowired
+    public ConcurrencyLimit(@Value("${concurrency_limit.enabled:true}") boolean enabled,
+                            @Value("${concurrency_limit.initial_limit:20}") int initialLimit,
+                            @Value("${concurrency_limit.min_limit:5}") int minLimit,
+                            @Value("${concurrency_limit.max_limit:200}") int maxLimit,
+                            @Value("${concurrency_limit.smoothing:0.2}") double smoothing,
+                            @Value("${concurrency_limit.rtt_tolerance:1.5}") double rttTolerance,
+                            @Value("${concurrency_limit.short_window:10}") int shortWindow,
+                            @Value("${concurrency_limit.long_window:600}") int longWindow) {
+        this(enabled, new AdaptiveLimiter(initialLimit, minLimit, maxLimit, smoothing, rttTolerance, shortWindow,
+                longWindow));
+
+        logger.debug("Concurrency limit {} starting at {} between {} and {}",
+                enabled ? "enabled" : "disabled", initialLimit, minLimit, maxLimit);
+    }
+
+    ConcurrencyLimit(boolean enabled, AdaptiveLimiter limiter) {
+        this(enabled, limiter, System::nanoTime);
+    }
+
+    ConcurrencyLimit(boolean enabled, AdaptiveLimiter limiter, LongSupplier nanoTime) {
+        this.enabled = enabled;
+        this.limiter = limiter;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Make a lookup if the limit allows it
+     *
+     * @param call - the lookup to make
+     * @return the result of the lookup
+     */
+    public <T> T call(Supplier<T> call) {
+
+        if (!enabled) {
+            return call.get();
+        }
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            limiter.release();
+        }
+    }
+
+    /**
+     * Time a call to the DAO, adjusting the limit if it is answered
+     *
+     * @param call - the call to the DAO
+     * @return the result of the call
+     */
+    public <T> T measure(Supplier<T> call) {
+
+        if (!enabled) {
+            return call.get();
+        }
+        int inFlight = limiter.getInFlight();
+        long start = nanoTime.getAsLong();
+        try {
+            T result = call.get();
+            limiter.onSample(nanoTime.getAsLong() - start, inFlight);
+            return result;
+        } catch (ResourceNotFoundException | BadRequestException e) {
+            limiter.onSample(nanoTime.getAsLong() - start, inFlight);
+            throw e;
+        }
+    }
+
+    private void acquire() {
+        if (limiter.tryAcquire() == 0) {
+            throw ServiceUnavailableException.refused(REFUSED_MESSAGE);
+        }
+    }
+
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Integer>("gauge.service.concurrency_limit.limit", limiter.getLimit()));
+        metrics.add(new Metric<Integer>("gauge.service.concurrency_limit.in_flight", limiter.getInFlight()));
+        metrics.add(new Metric<Long>("counter.service.concurrency_limit.rejected", limiter.getRejected()));
+        metrics.add(new Metric<Double>("gauge.service.concurrency_limit.rtt.short", limiter.getShortRtt() / 1e6));
+        metrics.add(new Metric<Double>("gauge.service.concurrency_limit.rtt.long", limiter.getLongRtt() / 1e6));
+        return metrics;
+    }
+}
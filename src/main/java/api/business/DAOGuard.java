@@ -0,0 +1,111 @@
+package api.business;
+
+import api.common.exceptions.BadRequestException;
+import api.common.exceptions.DeadlineExceededException;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.resilience.Bulkhead;
+import api.common.resilience.CircuitBreaker;
+import api.common.utils.Deadline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * DAOGuard - a bulkhead and a circuit breaker around calls to the DAO.
+ * <p/>
+ * A call is refused with a {@link ServiceUnavailableException} straight away when the bulkhead is full or the
+ * circuit is open, so that a degraded backend does not hold every request thread for the length of its timeout.
+ * A call counts as failed if it throws anything other than a not found or bad request, which are normal answers
+ * from a healthy backend, or a deadline exceeded, where it is the request rather than the backend that ran out of
+ * time. No call is made for a request already past its deadline.
+ * <p/>
+ * Published on the actuator metrics endpoint as gauge.dao.circuit_breaker.state (0 closed, 1 open, 2 half open),
+ * gauge.dao.circuit_breaker.failure_rate and slow_call_rate as percentages, counter.dao.circuit_breaker.not_permitted,
+ * gauge.dao.bulkhead.available and counter.dao.bulkhead.rejected.
+ */
+@Component
+public class DAOGuard implements PublicMetrics {
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final Bulkhead bulkhead;
+
+    @Autowired
+    public DAOGuard(@Value("${dao_circuit_breaker.failure_rate_threshold:50}") float failureRateThreshold,
+                    @Value("${dao_circuit_breaker.slow_call_rate_threshold:80}") float slowCallRateThreshold,
+                    @Value("${dao_circuit_breaker.slow_call_ms:3000}") long slowCallMs,
+                    @Value("${dao_circuit_breaker.window_size:50}") int windowSize,
+                    @Value("${dao_circuit_breaker.minimum_calls:20}") int minimumCalls,
+                    @Value("${dao_circuit_breaker.open_ms:10000}") long openMs,
+                    @Value("${dao_circuit_breaker.half_open_calls:5}") int halfOpenCalls,
+                    @Value("${dao_bulkhead.max_concurrent:50}") int maxConcurrent,
+                    @Value("${dao_bulkhead.max_wait_ms:0}") long maxWaitMs) {
+        this(new CircuitBreaker("dao", failureRateThreshold, slowCallRateThreshold, slowCallMs, windowSize,
+                minimumCalls, openMs, halfOpenCalls), new Bulkhead(maxConcurrent, maxWaitMs));
+    }
+
+    DAOGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Make a call to the DAO if the bulkhead and circuit breaker allow it
+     *
+     * @param call - the call to make
+     * @return the result of the call
+     */
+    public <T> T call(Supplier<T> call) {
+
+        Deadline.check("dao");
+        if (!bulkhead.tryAcquire()) {
+            throw ServiceUnavailableException.refused("Too many calls to the backend in progress");
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            throw ServiceUnavailableException.refused("Backend unavailable, calls are suspended");
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = false;
+            return result;
+        } catch (ResourceNotFoundException | BadRequestException | DeadlineExceededException e) {
+            failed = false;
+            throw e;
+        } finally {
+            circuitBreaker.onResult(System.nanoTime() - start, failed);
+            bulkhead.release();
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Integer>("gauge.dao.circuit_breaker.state", circuitBreaker.getState().ordinal()));
+        metrics.add(new Metric<Float>("gauge.dao.circuit_breaker.failure_rate", circuitBreaker.getFailureRate()));
+        metrics.add(new Metric<Float>("gauge.dao.circuit_breaker.slow_call_rate", circuitBreaker.getSlowCallRate()));
+        metrics.add(new Metric<Long>("counter.dao.circuit_breaker.not_permitted", circuitBreaker.getNotPermittedCalls()));
+        metrics.add(new Metric<Integer>("gauge.dao.bulkhead.available", bulkhead.getAvailable()));
+        metrics.add(new Metric<Long>("counter.dao.bulkhead.rejected", bulkhead.getRejected()));
+        return metrics;
+    }
+}
@@ -0,0 +1,36 @@
+package api.business;
+
+import api.common.resilience.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * DAOHealthIndicator - reports the DAO circuit breaker and bulkhead as the dao entry of the actuator /health
+ * endpoint.
+ * <p/>
+ * An open circuit is reported in the details rather than as DOWN. Cached responses are still served while it
+ * is open, and as every instance shares the backend, taking them all out of service would turn a degraded
+ * backend into a complete outage.
+ */
+@Component("daoHealthIndicator")
+public class DAOHealthIndicator extends AbstractHealthIndicator {
+
+    @Autowired
+    private DAOGuard daoGuard;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+
+        CircuitBreaker circuitBreaker = daoGuard.getCircuitBreaker();
+        builder.up()
+                .withDetail("circuitBreaker", circuitBreaker.getState())
+                .withDetail("failureRate", circuitBreaker.getFailureRate())
+                .withDetail("slowCallRate", circuitBreaker.getSlowCallRate())
+                .withDetail("bufferedCalls", circuitBreaker.getBufferedCalls())
+                .withDetail("notPermittedCalls", circuitBreaker.getNotPermittedCalls())
+                .withDetail("bulkheadAvailable", daoGuard.getBulkhead().getAvailable())
+                .withDetail("bulkheadRejected", daoGuard.getBulkhead().getRejected());
+    }
+}
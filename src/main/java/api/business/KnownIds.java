@@ -0,0 +1,165 @@
+package api.business;
+
+import api.common.utils.BloomFilter;
+import api.integration.DAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * KnownIds - a Bloom filter over every id the DAO has data for, so that ids which are definitely absent are
+ * refused without a backend call.
+ * <p/>
+ * The filter is rebuilt from {@link DAO#forEachId} at startup and then every known_ids.refresh_ms, and swapped in
+ * once complete. It is only used when the DAO can list its ids; until then, or if it cannot, every id is passed
+ * on. An id given data since the last rebuild is refused until the next one, so the refresh interval bounds how
+ * stale the filter can be. It is off unless known_ids.enabled is set, which suits a DAO whose ids change rarely or
+ * only with a restart; where ids are added while running, the negative cache alone answers repeated absent ids.
+ * <p/>
+ * Published on the actuator metrics endpoint as:
+ * <ul>
+ * <li>gauge.known_ids.size - ids in the filter, -1 when no filter is in use</li>
+ * <li>gauge.known_ids.bits - size of the filter in bits</li>
+ * <li>gauge.known_ids.expected_false_positive_rate - the rate predicted from the bits set</li>
+ * <li>gauge.known_ids.observed_false_positive_rate - absent ids passed by the filter as a fraction of all absent
+ * ids checked against it</li>
+ * <li>counter.known_ids.rejected - ids refused by the filter</li>
+ * <li>counter.known_ids.false_positives - ids passed by the filter that the DAO had no data for</li>
+ * <li>gauge.known_ids.age_seconds - time since the filter was built</li>
+ * </ul>
+ */
+@Component
+public class KnownIds implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(KnownIds.class);
+
+    private static final String PREFIX = "known_ids.";
+
+    @Autowired
+    private DAO dao;
+
+    @Value("${known_ids.enabled:false}")
+    boolean enabled;
+
+    @Value("${known_ids.false_positive_rate:0.01}")
+    double falsePositiveRate = 0.01;
+
+    /**
+     * the smallest number of ids the filter is sized for, it is otherwise sized for a quarter more than the last
+     */
+    @Value("${known_ids.minimum_expected_ids:10000}")
+    long minimumExpectedIds = 10000;
+
+    private volatile BloomFilter filter;
+
+    private volatile long builtAt;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * @param id - the id for the information requested
+     * @return false if the DAO definitely has no data for the id, true if it may have
+     */
+    public boolean mightExist(String id) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(id)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Record that the DAO had no data for an id, counting a false positive if the filter passed it
+     *
+     * @param id - the id for the information requested
+     */
+    public void notFound(String id) {
+        BloomFilter current = filter;
+        if (current != null && current.mightContain(id)) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Rebuild the filter from the ids the DAO lists. The current filter stays in use while the new one is built
+     * and is kept if listing fails. A filter that turns out to hold more ids than it was sized for is built again
+     * at the right size, so the false positive rate stays near the one configured.
+     */
+    @Scheduled(fixedDelayString = "${known_ids.refresh_ms:300000}")
+    public void refresh() {
+
+        if (!enabled) {
+            filter = null;
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        BloomFilter current = filter;
+        long expected = current == null ? minimumExpectedIds
+                : Math.max(minimumExpectedIds, current.getInsertions() + current.getInsertions() / 4);
+
+        BloomFilter next;
+        try {
+            next = build(expected);
+            if (next != null && next.getInsertions() > expected) {
+                next = build(next.getInsertions() + next.getInsertions() / 4);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to refresh the known ids, keeping the current filter: {}", e.getMessage());
+            return;
+        }
+
+        if (next == null) {
+            logger.debug("DAO cannot list its ids, every id will be passed to it");
+        } else {
+            logger.info("Known ids refreshed with {} ids in {} bits, expected false positive rate {} in milliSeconds:{}",
+                    next.getInsertions(), next.getBitSize(), next.expectedFalsePositiveRate(),
+                    (System.currentTimeMillis() - startTime));
+            builtAt = System.currentTimeMillis();
+        }
+        filter = next;
+    }
+
+    /**
+     * @return a filter over the ids the DAO lists, or null if it cannot list them
+     */
+    private BloomFilter build(long expected) {
+        BloomFilter next = new BloomFilter(expected, falsePositiveRate);
+        return dao.forEachId(next::put) ? next : null;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        BloomFilter current = filter;
+        long falsePositiveCount = falsePositives.sum();
+        long rejectedCount = rejected.sum();
+
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Long>("gauge." + PREFIX + "size", current == null ? -1 : current.getInsertions()));
+        if (current != null) {
+            metrics.add(new Metric<Long>("gauge." + PREFIX + "bits", current.getBitSize()));
+            metrics.add(new Metric<Double>("gauge." + PREFIX + "expected_false_positive_rate", current.expectedFalsePositiveRate()));
+            metrics.add(new Metric<Long>("gauge." + PREFIX + "age_seconds", (System.currentTimeMillis() - builtAt) / 1000));
+        }
+        metrics.add(new Metric<Double>("gauge." + PREFIX + "observed_false_positive_rate",
+                falsePositiveCount == 0 ? 0.0 : (double) falsePositiveCount / (falsePositiveCount + rejectedCount)));
+        metrics.add(new Metric<Long>("counter." + PREFIX + "rejected", rejectedCount));
+        metrics.add(new Metric<Long>("counter." + PREFIX + "false_positives", falsePositiveCount));
+        return metrics;
+    }
+}
@@ -0,0 +1,87 @@
+package api.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NegativeCache - bounded, short lived cache of the ids the DAO has no data for, keyed by id.
+ * <p/>
+ * Holds the not found message for each id so that repeated lookups of an unknown id are answered without
+ * another DAO call. The expiry is kept short as an id may gain data at any time. Hit, miss and eviction counts
+ * are published on the actuator metrics endpoint.
+ */
+@Component
+public class NegativeCache implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(NegativeCache.class);
+
+    private static final String PREFIX = "cache.negative.";
+
+    private final Cache<String, String> cache;
+
+    public NegativeCache(@Value("${negative_cache.maximum_size:10000}") long maximumSize,
+                         @Value("${negative_cache.expire_after_write_seconds:30}") long expireAfterWriteSeconds) {
+
+        logger.debug("Negative cache created with maximum size {} and expiry {}s", maximumSize, expireAfterWriteSeconds);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the not found message cached for an id
+     *
+     * @param id - the id for the information requested
+     * @return the message the DAO gave, or null if the id is not known to be absent
+     */
+    public String get(String id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * Record that the DAO has no data for an id
+     *
+     * @param id      - the id for the information requested
+     * @param message - the message of the not found exception
+     */
+    public void put(String id, String message) {
+        cache.put(id, message);
+    }
+
+    /**
+     * Forget that an id is absent, for example once data has been added for it
+     *
+     * @param id - the id to invalidate
+     */
+    public void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = cache.stats();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Long>(PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<Long>(PREFIX + "hit", stats.hitCount()));
+        metrics.add(new Metric<Long>(PREFIX + "miss", stats.missCount()));
+        metrics.add(new Metric<Long>(PREFIX + "eviction", stats.evictionCount()));
+        metrics.add(new Metric<Double>(PREFIX + "hit.ratio", stats.hitRate()));
+        return metrics;
+    }
+}
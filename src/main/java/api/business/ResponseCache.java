@@ -0,0 +1,289 @@
+package api.business;
+
+import api.business.model.Response;
+import api.common.exceptions.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * ResponseCache - bounded, time limited cache of DAO responses keyed by id.
+ * <p/>
+ * Backed by Caffeine (W-TinyLFU eviction). Hit, miss and eviction counts are published on the actuator metrics endpoint;
+ * hits and misses are counted from what {@link #get(String)} returns, so an entry held but no longer served is a miss.
+ * <p/>
+ * Once a refresher is set, an entry read after refresh_ahead_fraction of its time to live is still returned but
+ * is also reloaded in the background, so that busy ids are replaced before they expire. An entry read after it
+ * has expired, but within stale_grace_seconds, is likewise returned while it is reloaded. Only one reload per
+ * id runs at a time, and reloads the executor will not take are skipped, leaving the entry to be reloaded on a
+ * later read. Without a refresher, entries are returned only until they expire.
+ * <p/>
+ * Responses are also kept for up to keep_last_known_good_seconds after they are written, even once no longer
+ * returned by {@link #get(String)}, as the last known good response to fall back on while the DAO is unavailable.
+ * They are held in a store of their own, bounded by the same maximum size, so that old responses kept only for
+ * that purpose do not take the places of ids still being served.
+ */
+@Component
+public class ResponseCache implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(ResponseCache.class);
+
+    private static final String PREFIX = "cache.response.";
+
+    private final Cache<String, Entry> cache;
+
+    /**
+     * responses kept beyond the stale grace, null when they are not kept longer than the cache's own entries
+     */
+    private final Cache<String, Response> lastKnownGood;
+
+    private final Ticker ticker;
+
+    private final long refreshAfterNanos;
+
+    private final long expireAfterNanos;
+
+    private final long staleUntilNanos;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private volatile Function<String, Response> loader;
+
+    private volatile Executor executor;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder staleHits = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    private final LongAdder refreshRejections = new LongAdder();
+
+    @Autowired
+    public ResponseCache(@Value("${response_cache.maximum_size:10000}") long maximumSize,
+                         @Value("${response_cache.expire_after_write_seconds:300}") long expireAfterWriteSeconds,
+                         @Value("${response_cache.refresh_ahead_fraction:0.8}") double refreshAheadFraction,
+                         @Value("${response_cache.stale_grace_seconds:60}") long staleGraceSeconds,
+                         @Value("${response_cache.keep_last_known_good_seconds:3600}") long keepLastKnownGoodSeconds) {
+        this(maximumSize, expireAfterWriteSeconds, refreshAheadFraction, staleGraceSeconds, keepLastKnownGoodSeconds,
+                Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maintenance - runs the caches' evictions and other upkeep, which tests run on the calling thread
+     */
+    ResponseCache(long maximumSize, long expireAfterWriteSeconds, double refreshAheadFraction, long staleGraceSeconds,
+                  long keepLastKnownGoodSeconds, Ticker ticker, Executor maintenance) {
+
+        logger.debug("Response cache created with maximum size {}, expiry {}s, refresh ahead at {}, stale grace {}s and last known good kept {}s",
+                maximumSize, expireAfterWriteSeconds, refreshAheadFraction, staleGraceSeconds, keepLastKnownGoodSeconds);
+
+        this.ticker = ticker;
+        this.expireAfterNanos = TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds);
+        this.refreshAfterNanos = (long) (expireAfterNanos * Math.min(Math.max(refreshAheadFraction, 0), 1));
+        this.staleUntilNanos = expireAfterNanos + TimeUnit.SECONDS.toNanos(Math.max(staleGraceSeconds, 0));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(staleUntilNanos, TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .executor(maintenance)
+                .recordStats()
+                .build();
+        this.lastKnownGood = TimeUnit.SECONDS.toNanos(keepLastKnownGoodSeconds) <= staleUntilNanos ? null
+                : Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(keepLastKnownGoodSeconds, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .executor(maintenance)
+                .build();
+    }
+
+    /**
+     * Reload entries in the background once they are due for refresh
+     *
+     * @param loader   - obtains a new response for an id, throwing ResourceNotFoundException if it has none
+     * @param executor - runs the reloads, rejecting any beyond the number allowed at once
+     */
+    public void setRefresher(Function<String, Response> loader, Executor executor) {
+        this.executor = executor;
+        this.loader = loader;
+    }
+
+    /**
+     * Get the cached response for an id, starting a background reload if it is due for one
+     *
+     * @param id - the id for the information requested
+     * @return the cached response, or null if absent or expired
+     */
+    public Response get(String id) {
+
+        Entry entry = cache.getIfPresent(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        long age = ticker.read() - entry.writtenAt;
+        if (age >= staleUntilNanos) {
+            misses.increment();
+            return null;
+        }
+        if (age >= refreshAfterNanos) {
+            Function<String, Response> currentLoader = loader;
+            if (age >= expireAfterNanos) {
+                if (currentLoader == null) {
+                    misses.increment();
+                    return null;
+                }
+                staleHits.increment();
+            }
+            if (currentLoader != null) {
+                refresh(id, currentLoader);
+            }
+        }
+        hits.increment();
+        return entry.response;
+    }
+
+    /**
+     * Get the cached response for an id if it has not yet expired, without counting a hit or miss or starting a
+     * reload. For checking again after a lookup has already been counted.
+     *
+     * @param id - the id for the information requested
+     * @return the cached response, or null if absent or expired
+     */
+    Response peek(String id) {
+        Entry entry = cache.getIfPresent(id);
+        if (entry == null || ticker.read() - entry.writtenAt >= expireAfterNanos) {
+            return null;
+        }
+        return entry.response;
+    }
+
+    /**
+     * Get the most recent response cached for an id however old, without starting a reload
+     *
+     * @param id - the id for the information requested
+     * @return the last known good response, or null if none is held
+     */
+    public Response getLastKnownGood(String id) {
+        Entry entry = cache.getIfPresent(id);
+        if (entry != null) {
+            return entry.response;
+        }
+        return lastKnownGood == null ? null : lastKnownGood.getIfPresent(id);
+    }
+
+    /**
+     * Cache the response for an id
+     *
+     * @param id       - the id for the information requested
+     * @param response - the response obtained from the DAO
+     */
+    public void put(String id, Response response) {
+        cache.put(id, new Entry(response, ticker.read()));
+        if (lastKnownGood != null) {
+            lastKnownGood.put(id, response);
+        }
+    }
+
+    /**
+     * Remove any cached response for an id
+     *
+     * @param id - the id to invalidate
+     */
+    public void invalidate(String id) {
+        cache.invalidate(id);
+        if (lastKnownGood != null) {
+            lastKnownGood.invalidate(id);
+        }
+    }
+
+    /**
+     * Reload an id on the executor unless a reload of it is already running. The cached entry is kept if the
+     * reload fails, and removed if the id no longer has data.
+     */
+    private void refresh(String id, Function<String, Response> currentLoader) {
+
+        if (!refreshing.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    put(id, currentLoader.apply(id));
+                    refreshes.increment();
+                } catch (ResourceNotFoundException e) {
+                    invalidate(id);
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    logger.debug("Refresh failed for identifier {}, keeping the cached response: {}", id, e.getMessage());
+                } finally {
+                    refreshing.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(id);
+            refreshRejections.increment();
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = cache.stats();
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Long>(PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<Long>(PREFIX + "hit", hitCount));
+        metrics.add(new Metric<Long>(PREFIX + "miss", requestCount - hitCount));
+        metrics.add(new Metric<Long>(PREFIX + "eviction", stats.evictionCount()));
+        metrics.add(new Metric<Double>(PREFIX + "hit.ratio", requestCount == 0 ? 1.0 : (double) hitCount / requestCount));
+        metrics.add(new Metric<Long>(PREFIX + "last_known_good.size",
+                lastKnownGood == null ? 0 : lastKnownGood.estimatedSize()));
+        metrics.add(new Metric<Long>(PREFIX + "hit.stale", staleHits.sum()));
+        metrics.add(new Metric<Long>(PREFIX + "refresh", refreshes.sum()));
+        metrics.add(new Metric<Long>(PREFIX + "refresh.failed", refreshFailures.sum()));
+        metrics.add(new Metric<Long>(PREFIX + "refresh.rejected", refreshRejections.sum()));
+        metrics.add(new Metric<Integer>(PREFIX + "refresh.in_flight", refreshing.size()));
+        return metrics;
+    }
+
+    private static class Entry {
+
+        private final Response response;
+
+        private final long writtenAt;
+
+        Entry(Response response, long writtenAt) {
+            this.response = response;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
@@ -1,7 +1,19 @@
 package api.business;
 
+import api.business.model.BatchResponse;
+import api.business.model.Model;
 import api.business.model.Response;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface Service {
     Response getInfo(String id);
+
+    ListenableFuture<Response> getInfoAsync(String id);
+
+    BatchResponse getInfoBatch(Collection<String> ids);
+
+    void streamInfo(String id, Consumer<Model> consumer);
 }
@@ -1,10 +1,32 @@
 package api.business;
 
+import api.business.model.BatchError;
+import api.business.model.BatchResponse;
+import api.business.model.Model;
 import api.business.model.Response;
+import api.common.exceptions.DeadlineExceededException;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.utils.Deadline;
+import api.common.utils.SingleFlight;
 import api.integration.DAO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 @org.springframework.stereotype.Service
 public class ServiceImpl implements Service {
@@ -15,9 +37,240 @@ public class ServiceImpl implements Service {
     @Autowired
     private DAO dao;
 
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private NegativeCache negativeCache;
+
+    @Autowired
+    private KnownIds knownIds;
+
+    @Autowired
+    private DAOGuard daoGuard;
+
+    @Autowired
+    private ConcurrencyLimit concurrencyLimit;
+
+    @Autowired
+    @Qualifier("daoExecutor")
+    private AsyncListenableTaskExecutor daoExecutor;
+
+    @Autowired
+    @Qualifier("refreshExecutor")
+    private Executor refreshExecutor;
+
+    /** Concurrent cache misses for the same id share one DAO call */
+    private final SingleFlight<String, Response> inFlight = new SingleFlight<>();
+
+    /**
+     * Cached responses due for refresh are reloaded in the background. The cache reloads an id only once at a time,
+     * so reloads are kept out of the calls that lookups share: a lookup that missed the cache always makes or joins
+     * a call that falls back to the last known good response, never a reload that would fail without it.
+     */
+    @PostConstruct
+    public void init() {
+        responseCache.setRefresher(this::fetch, refreshExecutor);
+    }
+
+    /**
+     * Cached responses are returned straight away. Concurrent lookups of an uncached id share one call to the DAO,
+     * and only the lookup making that call takes a place within the concurrency limit.
+     */
     @Override
     public Response getInfo(String id) {
         logger.debug("Entered Service Impl");
-        return dao.getInfo(id);
+
+        Response response = responseCache.get(id);
+        if (response == null) {
+            checkMightExist(id);
+            Deadline.check("service");
+            response = inFlight.execute(id, () -> load(id));
+        }
+        return response;
+    }
+
+    /**
+     * Cached responses complete immediately, otherwise the lookup runs on the bounded DAO executor, sharing a call
+     * to the DAO as {@link #getInfo(String)} does. When the executor is saturated the request is refused straight
+     * away rather than queued. A lookup that waited in the executor's queue past the request's deadline is abandoned
+     * without calling the DAO.
+     */
+    @Override
+    public ListenableFuture<Response> getInfoAsync(String id) {
+        logger.debug("Entered Service Impl async");
+
+        Response response = responseCache.get(id);
+        if (response != null) {
+            return new AsyncResult<>(response);
+        }
+        checkMightExist(id);
+        Deadline.check("service");
+        try {
+            return daoExecutor.submitListenable(() -> {
+                Deadline.check("executor");
+                return inFlight.execute(id, () -> load(id));
+            });
+        } catch (TaskRejectedException e) {
+            throw ServiceUnavailableException.refused("Too many requests in progress");
+        }
+    }
+
+    /**
+     * Cached ids are answered from the cache, the rest are fetched from the DAO in one batch call. An id the DAO
+     * has no data for, or that is already known to be absent, is reported as a not found error for that id alone;
+     * when the DAO is unavailable each of the uncached ids is answered with its last known good response, or
+     * reported as unavailable if there is none, while the cached ids still succeed.
+     */
+    @Override
+    public BatchResponse getInfoBatch(Collection<String> ids) {
+        logger.debug("Entered Service Impl batch for {} ids", ids.size());
+
+        BatchResponse batchResponse = new BatchResponse();
+        Map<String, Response> results = batchResponse.getResults();
+        Map<String, BatchError> errors = batchResponse.getErrors();
+
+        List<String> misses = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Response response = responseCache.get(id);
+            String absent;
+            if (response != null) {
+                results.put(id, response);
+            } else if ((absent = absentMessage(id)) != null) {
+                errors.put(id, new BatchError(HttpStatus.NOT_FOUND, absent));
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return batchResponse;
+        }
+
+        Deadline.check("service");
+        Map<String, Response> found;
+        try {
+            found = daoGuard.call(() -> dao.getInfoBatch(misses));
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Batch retrieval of {} ids failed: {}", misses.size(), e.getMessage());
+            for (String id : misses) {
+                Response lastKnownGood = responseCache.getLastKnownGood(id);
+                if (lastKnownGood != null) {
+                    results.put(id, lastKnownGood);
+                } else {
+                    errors.put(id, new BatchError(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+                }
+            }
+            return batchResponse;
+        }
+
+        for (String id : misses) {
+            Response response = found.get(id);
+            if (response != null) {
+                responseCache.put(id, response);
+                results.put(id, response);
+            } else {
+                String message = String.format("No data available for this id: %s", id);
+                notFound(id, message);
+                errors.put(id, new BatchError(HttpStatus.NOT_FOUND, message));
+            }
+        }
+        return batchResponse;
+    }
+
+    /**
+     * A cached response is replayed row by row, otherwise the rows are passed straight through from the DAO as
+     * they are read. Streamed results are neither cached nor shared between callers, as that would mean holding
+     * the whole result in memory.
+     */
+    @Override
+    public void streamInfo(String id, Consumer<Model> consumer) {
+        logger.debug("Entered Service Impl stream");
+
+        Response response = responseCache.get(id);
+        if (response != null) {
+            response.getModels().forEach(consumer);
+        } else {
+            checkMightExist(id);
+            Deadline.check("service");
+            try {
+                dao.streamInfo(id, consumer);
+            } catch (ResourceNotFoundException e) {
+                notFound(id, e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Obtain the response from the DAO and cache it. The cache is checked again, without counting the lookup a
+     * second time, as another call for the same id may have completed between the first lookup and this call
+     * starting. The call takes a place within the
+     * concurrency limit, which the lookups sharing it do not, so that a burst for one id is not refused for want of
+     * places. While the DAO is unavailable, or no place is free, the last known good response is returned, if there
+     * is one, without being cached again; a request out of time is refused rather than answered late.
+     */
+    private Response load(String id) {
+        Response response = responseCache.peek(id);
+        if (response == null) {
+            try {
+                response = concurrencyLimit.call(() -> fetch(id));
+            } catch (DeadlineExceededException e) {
+                throw e;
+            } catch (ServiceUnavailableException e) {
+                response = responseCache.getLastKnownGood(id);
+                if (response == null) {
+                    throw e;
+                }
+                logger.debug("Serving last known good response for identifier {}: {}", id, e.getMessage());
+                return response;
+            }
+            responseCache.put(id, response);
+        }
+        return response;
+    }
+
+    /**
+     * Obtain the response from the DAO, within the limits of the bulkhead and circuit breaker, remembering the id
+     * if it has no data. Only the time of a call that reaches the DAO adjusts the concurrency limit.
+     */
+    private Response fetch(String id) {
+        try {
+            return daoGuard.call(() -> concurrencyLimit.measure(() -> dao.getInfo(id)));
+        } catch (ResourceNotFoundException e) {
+            notFound(id, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Refuse an id the DAO is already known to have no data for, without calling it
+     */
+    private void checkMightExist(String id) {
+        String message = absentMessage(id);
+        if (message != null) {
+            throw ResourceNotFoundException.withoutStackTrace(message);
+        }
+    }
+
+    /**
+     * @return the not found message for an id that is definitely absent from the filter of known ids or that the
+     * DAO recently had no data for, otherwise null
+     */
+    private String absentMessage(String id) {
+        if (!knownIds.mightExist(id)) {
+            return "No data available for this id: " + id;
+        }
+        return negativeCache.get(id);
+    }
+
+    /**
+     * Remember that the DAO had no data for an id so that repeated lookups are answered without calling it
+     */
+    private void notFound(String id, String message) {
+        negativeCache.put(id, message);
+        knownIds.notFound(id);
     }
 }
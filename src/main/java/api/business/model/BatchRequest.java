@@ -0,0 +1,24 @@
+package api.business.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchRequest {
+
+    private List<String> ids = new ArrayList<>();
+
+    public BatchRequest() {
+    }
+
+    public BatchRequest(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,34 @@
+package api.business.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BatchResponse {
+
+    private Map<String, Response> results = new LinkedHashMap<>();
+    private Map<String, BatchError> errors = new LinkedHashMap<>();
+
+    public BatchResponse() {
+    }
+
+    public BatchResponse(Map<String, Response> results, Map<String, BatchError> errors) {
+        this.results = results;
+        this.errors = errors;
+    }
+
+    public Map<String, Response> getResults() {
+        return results;
+    }
+
+    public void setResults(Map<String, Response> results) {
+        this.results = results;
+    }
+
+    public Map<String, BatchError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, BatchError> errors) {
+        this.errors = errors;
+    }
+}
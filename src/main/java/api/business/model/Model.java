@@ -1,19 +1,29 @@
 package api.business.model;
 
-public class Model {
-
-    private String name;
-    private String address_line_1;
-    private String address_line_2;
-    private String address_line_3;
-    private String address_line_4;
-    private String address_line_5;
-    private String postcode;
-
-    public Model() {
-    }
-
-    public Model(String name, String address_line_1, String address_line_2, String address_line_3, String address_line_4, String address_line_5, String postcode) {
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Immutable row of information for an individual. Instances are safe to share between cached responses.
+ */
+public final class Model {
+
+    private final String name;
+    private final String address_line_1;
+    private final String address_line_2;
+    private final String address_line_3;
+    private final String address_line_4;
+    private final String address_line_5;
+    private final String postcode;
+
+    @JsonCreator
+    public Model(@JsonProperty("name") String name,
+                 @JsonProperty("address_line_1") String address_line_1,
+                 @JsonProperty("address_line_2") String address_line_2,
+                 @JsonProperty("address_line_3") String address_line_3,
+                 @JsonProperty("address_line_4") String address_line_4,
+                 @JsonProperty("address_line_5") String address_line_5,
+                 @JsonProperty("postcode") String postcode) {
         this.name = name;
         this.address_line_1 = address_line_1;
         this.address_line_2 = address_line_2;
@@ -23,59 +33,91 @@ public class Model {
         this.postcode = postcode;
     }
 
-    public String getName() {
-        return name;
+    public static Builder builder() {
+        return new Builder();
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public String getName() {
+        return name;
     }
 
     public String getAddress_line_1() {
         return address_line_1;
     }
 
-    public void setAddress_line_1(String address_line_1) {
-        this.address_line_1 = address_line_1;
-    }
-
     public String getAddress_line_2() {
         return address_line_2;
     }
 
-    public void setAddress_line_2(String address_line_2) {
-        this.address_line_2 = address_line_2;
-    }
-
     public String getAddress_line_3() {
         return address_line_3;
     }
 
-    public void setAddress_line_3(String address_line_3) {
-        this.address_line_3 = address_line_3;
-    }
-
     public String getAddress_line_4() {
         return address_line_4;
     }
 
-    public void setAddress_line_4(String address_line_4) {
-        this.address_line_4 = address_line_4;
-    }
-
     public String getAddress_line_5() {
         return address_line_5;
     }
 
-    public void setAddress_line_5(String address_line_5) {
-        this.address_line_5 = address_line_5;
-    }
-
     public String getPostcode() {
         return postcode;
     }
 
-    public void setPostcode(String postcode) {
-        this.postcode = postcode;
-    }
-}
\ No newline at end of file
+    /**
+     * Builder for rows that are read field by field, such as from a streamed JSON body.
+     */
+    public static final class Builder {
+
+        private String name;
+        private String address_line_1;
+        private String address_line_2;
+        private String address_line_3;
+        private String address_line_4;
+        private String address_line_5;
+        private String postcode;
+
+        private Builder() {
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder address_line_1(String address_line_1) {
+            this.address_line_1 = address_line_1;
+            return this;
+        }
+
+        public Builder address_line_2(String address_line_2) {
+            this.address_line_2 = address_line_2;
+            return this;
+        }
+
+        public Builder address_line_3(String address_line_3) {
+            this.address_line_3 = address_line_3;
+            return this;
+        }
+
+        public Builder address_line_4(String address_line_4) {
+            this.address_line_4 = address_line_4;
+            return this;
+        }
+
+        public Builder address_line_5(String address_line_5) {
+            this.address_line_5 = address_line_5;
+            return this;
+        }
+
+        public Builder postcode(String postcode) {
+            this.postcode = postcode;
+            return this;
+        }
+
+        public Model build() {
+            return new Model(name, address_line_1, address_line_2, address_line_3, address_line_4, address_line_5, postcode);
+        }
+    }
+}
@@ -1,24 +1,29 @@
 package api.business.model;
 
-import java.util.ArrayList;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
 import java.util.List;
 
-public class Response {
+/**
+ * Immutable set of rows for an id. The list handed to the constructor is wrapped, not copied, so the caller
+ * must not modify it afterwards.
+ */
+public final class Response {
 
-    private List<Model> models = new ArrayList<>();
+    private final List<Model> models;
 
     public Response() {
+        this.models = Collections.emptyList();
     }
 
-    public Response(List<Model> models) {
-        this.models = models;
+    @JsonCreator
+    public Response(@JsonProperty("models") List<Model> models) {
+        this.models = models == null ? Collections.<Model>emptyList() : Collections.unmodifiableList(models);
     }
 
     public List<Model> getModels() {
         return models;
     }
-
-    public void setModels(List<Model> models) {
-        this.models = models;
-    }
 }
@@ -27,4 +27,19 @@ public class BadRequestException extends RuntimeException {
     public BadRequestException(String message, Throwable ex) {
         super(message, ex);
     }
-}
\ No newline at end of file
+
+    private BadRequestException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * An exception with no stack trace, for a malformed id or batch from the caller. The message says all there is to
+     * say about it.
+     *
+     * @param message the detail message
+     * @return the exception
+     */
+    public static BadRequestException withoutStackTrace(String message) {
+        return new BadRequestException(message, false);
+    }
+}
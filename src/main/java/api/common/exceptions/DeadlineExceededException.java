@@ -0,0 +1,47 @@
+package api.common.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * When the time allowed for a request runs out before it is answered return HttpStatus.SERVICE_UNAVAILABLE
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class DeadlineExceededException extends ServiceUnavailableException {
+
+    /** Serial version ID */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     *
+     * @param message
+     *            the detail message
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    private DeadlineExceededException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace, true);
+    }
+
+    /**
+     * An exception with no stack trace. The stage that ran out of time is named in the message, so a trace would
+     * add nothing.
+     *
+     * @param message the detail message
+     * @return the exception
+     */
+    public static DeadlineExceededException withoutStackTrace(String message) {
+        return new DeadlineExceededException(message, false);
+    }
+
+    /**
+     * @return true, a request out of time is always refused to shed load
+     */
+    @Override
+    public boolean isRefused() {
+        return true;
+    }
+}
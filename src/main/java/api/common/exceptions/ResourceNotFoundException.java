@@ -40,4 +40,19 @@ public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message, Throwable exception) {
         super(message, exception);
     }
+
+    private ResourceNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * An exception with no stack trace, for an id the backend does not know. Unknown ids are an everyday answer
+     * rather than a fault.
+     *
+     * @param message the detail message
+     * @return the exception
+     */
+    public static ResourceNotFoundException withoutStackTrace(String message) {
+        return new ResourceNotFoundException(message, false);
+    }
 }
@@ -12,6 +12,8 @@ public class ServiceUnavailableException extends RuntimeException {
     /** Serial version ID */
     private static final long serialVersionUID = 1L;
 
+    private final boolean refused;
+
     /**
      * Constructor.
      *
@@ -20,6 +22,7 @@ public class ServiceUnavailableException extends RuntimeException {
      */
     public ServiceUnavailableException(String message) {
         super(message);
+        this.refused = false;
     }
 
     /**
@@ -29,6 +32,7 @@ public class ServiceUnavailableException extends RuntimeException {
      */
     public ServiceUnavailableException(Throwable exception) {
         super(exception);
+        this.refused = false;
     }
 
     /**
@@ -39,5 +43,40 @@ public class ServiceUnavailableException extends RuntimeException {
      */
     public ServiceUnavailableException(String message, Throwable exception) {
         super(message, exception);
+        this.refused = false;
+    }
+
+    protected ServiceUnavailableException(String message, boolean writableStackTrace, boolean refused) {
+        super(message, null, false, writableStackTrace);
+        this.refused = refused;
+    }
+
+    /**
+     * An exception with no stack trace, for a failure whose message says all there is to say about it, such as a
+     * request that timed out. It is not marked as refused, so it is still logged as an error.
+     *
+     * @param message the detail message
+     * @return the exception
+     */
+    public static ServiceUnavailableException withoutStackTrace(String message) {
+        return new ServiceUnavailableException(message, false, false);
+    }
+
+    /**
+     * An exception with no stack trace, for a call refused before it reached the backend to shed load. It is marked
+     * as refused so that it is counted and logged at debug.
+     *
+     * @param message the detail message
+     * @return the exception
+     */
+    public static ServiceUnavailableException refused(String message) {
+        return new ServiceUnavailableException(message, false, true);
+    }
+
+    /**
+     * @return true if the request was refused to shed load rather than failed, as is expected under overload
+     */
+    public boolean isRefused() {
+        return refused;
     }
 }
@@ -0,0 +1,38 @@
+package api.common.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * When a caller has made more requests than it is allowed return HttpStatus.TOO_MANY_REQUESTS
+ */
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException {
+
+    /** Serial version ID */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     *
+     * @param message
+     *            the detail message
+     */
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+
+    private TooManyRequestsException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * An exception with no stack trace, thrown for each request from a caller over its rate limit.
+     *
+     * @param message the detail message
+     * @return the exception
+     */
+    public static TooManyRequestsException withoutStackTrace(String message) {
+        return new TooManyRequestsException(message, false);
+    }
+}
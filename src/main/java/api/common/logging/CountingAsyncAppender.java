@@ -0,0 +1,62 @@
+package api.common.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CountingAsyncAppender - logback's {@link AsyncAppender}, counting the events it drops.
+ * <p/>
+ * Events are queued for a single worker thread that passes them on to the attached appender. Once the remaining
+ * capacity of the queue falls below discardingThreshold, TRACE, DEBUG and INFO events are dropped; with neverBlock
+ * set, any event arriving at a full queue is dropped rather than waiting for space. Each dropped event is counted,
+ * so that lost logging shows up in the metrics rather than going unnoticed.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private static final int UNDEFINED = -1;
+
+    private final LongAdder lost = new LongAdder();
+
+    private int discardingThreshold = UNDEFINED;
+
+    @Override
+    public void start() {
+        if (discardingThreshold == UNDEFINED) {
+            discardingThreshold = getQueueSize() / 5;
+        }
+        // Discarding is decided here so that every dropped event is counted
+        super.setDiscardingThreshold(0);
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < discardingThreshold && isDiscardable(event)) || (remaining == 0 && isNeverBlock())) {
+            lost.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    @Override
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    @Override
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    /**
+     * @return the number of events dropped since the appender was created. With neverBlock set, an event that finds
+     * the queue filled by another thread between the check and the offer is dropped by the queue without being
+     * counted, so under heavy contention the count may be slightly low.
+     */
+    public long getLostCount() {
+        return lost.sum();
+    }
+}
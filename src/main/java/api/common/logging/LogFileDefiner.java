@@ -0,0 +1,20 @@
+package api.common.logging;
+
+import ch.qos.logback.core.PropertyDefinerBase;
+import org.springframework.util.StringUtils;
+
+/**
+ * LogFileDefiner - defines a property as "file" when Boot has been given logging.file or logging.path, which it
+ * passes to logback as the LOG_FILE system property, and as "none" otherwise, so that a configuration can include
+ * its file appenders only when logging to a file has been asked for.
+ */
+public class LogFileDefiner extends PropertyDefinerBase {
+
+    private static final String LOG_FILE = "LOG_FILE";
+
+    @Override
+    public String getPropertyValue() {
+        String logFile = System.getProperty(LOG_FILE);
+        return StringUtils.hasText(logFile) ? "file" : "none";
+    }
+}
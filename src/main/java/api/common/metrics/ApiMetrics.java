@@ -0,0 +1,81 @@
+package api.common.metrics;
+
+import api.common.utils.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiMetrics - the latency timers for the controller, service and DAO layers, published on the actuator's
+ * /metrics endpoint.
+ * <p/>
+ * Each timer named layer.operation is published as:
+ * <ul>
+ * <li>counter.api.layer.operation.count - calls completed since startup</li>
+ * <li>gauge.api.layer.operation.rate - calls completed per second over the percentile window</li>
+ * <li>gauge.api.layer.operation.in_flight - calls in progress</li>
+ * <li>timer.api.layer.operation.p50, p90, p99, p999 and max - call durations in milliseconds</li>
+ * <li>counter.api.layer.operation.errors.Type - failed calls by type of error</li>
+ * </ul>
+ * Requests that ran out of time are published as counter.api.deadline.expired.stage, by the stage they reached.
+ */
+@Component
+public class ApiMetrics implements PublicMetrics {
+
+    private static final String PREFIX = "api.";
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * the length of each window that percentiles and rates are calculated over
+     */
+    @Value("${metrics.window_seconds:60}")
+    long windowSeconds = 60;
+
+    private final ConcurrentHashMap<String, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param name - the name of the timer, as layer.operation
+     * @return the timer with that name, created if it does not yet exist
+     */
+    public LatencyTimer timer(String name) {
+        LatencyTimer timer = timers.get(name);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(name, key -> new LatencyTimer(key, windowSeconds));
+        }
+        return timer;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (LatencyTimer timer : timers.values()) {
+            String name = PREFIX + timer.getName();
+            LatencyTimer.Snapshot snapshot = timer.snapshot();
+            metrics.add(new Metric<>("counter." + name + ".count", snapshot.getCount()));
+            metrics.add(new Metric<>("gauge." + name + ".rate", snapshot.getRate()));
+            metrics.add(new Metric<>("gauge." + name + ".in_flight", snapshot.getInFlight()));
+            metrics.add(new Metric<>("timer." + name + ".p50", snapshot.getP50() / NANOS_PER_MILLI));
+            metrics.add(new Metric<>("timer." + name + ".p90", snapshot.getP90() / NANOS_PER_MILLI));
+            metrics.add(new Metric<>("timer." + name + ".p99", snapshot.getP99() / NANOS_PER_MILLI));
+            metrics.add(new Metric<>("timer." + name + ".p999", snapshot.getP999() / NANOS_PER_MILLI));
+            metrics.add(new Metric<>("timer." + name + ".max", snapshot.getMax() / NANOS_PER_MILLI));
+            for (Map.Entry<String, Long> error : snapshot.getErrors().entrySet()) {
+                metrics.add(new Metric<>("counter." + name + ".errors." + error.getKey(), error.getValue()));
+            }
+        }
+        for (Map.Entry<String, Long> expired : Deadline.expiredCounts().entrySet()) {
+            metrics.add(new Metric<>("counter." + PREFIX + "deadline.expired." + expired.getKey(), expired.getValue()));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,246 @@
+package api.common.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyTimer - records how long calls to one operation take, how many are in flight and how many failed.
+ * <p/>
+ * Durations are recorded in nanoseconds to a {@link Recorder}, which is wait-free for the threads recording, and
+ * the in flight and error counts are {@link LongAdder}s, so timing a call adds no contention. Only
+ * {@link #snapshot()} takes a lock. Percentiles cover the window in progress and the one before it, so a snapshot
+ * always reflects at least one full window of calls.
+ */
+public class LatencyTimer {
+
+    /**
+     * durations longer than this are recorded as this
+     */
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * values are accurate to 1%, which keeps each histogram to tens of kilobytes
+     */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String name;
+
+    private final long windowNanos;
+
+    private final Recorder recorder = new Recorder(1, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    // Only used by snapshot, guarded by this
+
+    private Histogram interval;
+
+    private Histogram current = newHistogram();
+
+    private Histogram previous = newHistogram();
+
+    private final Histogram combined = newHistogram();
+
+    private long currentStart;
+
+    private long previousStart;
+
+    private long count;
+
+    /**
+     * @param name          - the name the timer is reported under
+     * @param windowSeconds - the length of each window the percentiles are calculated over
+     */
+    public LatencyTimer(String name, long windowSeconds) {
+        this.name = name;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.currentStart = System.nanoTime();
+        this.previousStart = currentStart;
+    }
+
+    /**
+     * @return the name the timer is reported under
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Mark the start of a call
+     *
+     * @return the start time to pass to {@link #stop(long)}
+     */
+    public long start() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark the successful end of a call
+     *
+     * @param startNanos - the value returned by {@link #start()}
+     */
+    public void stop(long startNanos) {
+        recorder.recordValue(Math.min(Math.max(System.nanoTime() - startNanos, 1), HIGHEST_TRACKABLE_NANOS));
+        inFlight.decrement();
+    }
+
+    /**
+     * Mark the end of a call that failed, counting the failure against the type of the error
+     *
+     * @param startNanos - the value returned by {@link #start()}
+     * @param error      - the error the call failed with
+     */
+    public void stop(long startNanos, Throwable error) {
+        stop(startNanos);
+        String type = error.getClass().getSimpleName();
+        LongAdder counter = errors.get(type);
+        if (counter == null) {
+            counter = errors.computeIfAbsent(type, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * @return the figures for this timer as of now
+     */
+    public synchronized Snapshot snapshot() {
+
+        long now = System.nanoTime();
+        interval = recorder.getIntervalHistogram(interval);
+        count += interval.getTotalCount();
+
+        if (now - currentStart >= 2 * windowNanos) {
+            // Nothing has been read for two windows, so the previous window is out of date too
+            previous.reset();
+            current.reset();
+            previousStart = now;
+            currentStart = now;
+        } else if (now - currentStart >= windowNanos) {
+            Histogram swap = previous;
+            previous = current;
+            current = swap;
+            current.reset();
+            previousStart = currentStart;
+            currentStart = now;
+        }
+        current.add(interval);
+
+        combined.reset();
+        combined.add(previous);
+        combined.add(current);
+
+        Map<String, Long> errorCounts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            errorCounts.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return new Snapshot(count, combined, Math.max(now - previousStart, 1), inFlight.sum(), errorCounts);
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(1, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * The figures for a timer at a point in time. Durations are in nanoseconds.
+     */
+    public static class Snapshot {
+
+        private final long count;
+
+        private final long windowCount;
+
+        private final double rate;
+
+        private final long p50;
+
+        private final long p90;
+
+        private final long p99;
+
+        private final long p999;
+
+        private final long max;
+
+        private final long inFlight;
+
+        private final Map<String, Long> errors;
+
+        Snapshot(long count, Histogram window, long windowNanos, long inFlight, Map<String, Long> errors) {
+            this.count = count;
+            this.windowCount = window.getTotalCount();
+            this.rate = windowCount * (double) TimeUnit.SECONDS.toNanos(1) / windowNanos;
+            this.p50 = window.getValueAtPercentile(50);
+            this.p90 = window.getValueAtPercentile(90);
+            this.p99 = window.getValueAtPercentile(99);
+            this.p999 = window.getValueAtPercentile(99.9);
+            this.max = window.getMaxValue();
+            this.inFlight = inFlight;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the number of calls completed since the timer was created
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the number of calls the percentiles are calculated from
+         */
+        public long getWindowCount() {
+            return windowCount;
+        }
+
+        /**
+         * @return the calls completed per second over the window
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return the number of calls started and not yet completed
+         */
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return the number of failed calls since the timer was created, by simple name of the error type
+         */
+        public Map<String, Long> getErrors() {
+            return errors;
+        }
+    }
+}
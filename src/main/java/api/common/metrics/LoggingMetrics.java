@@ -0,0 +1,51 @@
+package api.common.metrics;
+
+import api.common.logging.CountingAsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LoggingMetrics - publishes, for each asynchronous appender attached to a logger, the number of events waiting in
+ * its queue as gauge.logging.name.queued and the number it has dropped as counter.logging.name.lost.
+ */
+@Component
+public class LoggingMetrics implements PublicMetrics {
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        List<Metric<?>> metrics = new ArrayList<>();
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext)) {
+            return metrics;
+        }
+
+        Set<String> published = new HashSet<>();
+        for (Logger logger : ((LoggerContext) loggerFactory).getLoggerList()) {
+            for (Iterator<Appender<ILoggingEvent>> appenders = logger.iteratorForAppenders(); appenders.hasNext(); ) {
+                Appender<ILoggingEvent> appender = appenders.next();
+                if (appender instanceof CountingAsyncAppender && published.add(appender.getName())) {
+                    CountingAsyncAppender asyncAppender = (CountingAsyncAppender) appender;
+                    String name = "logging." + asyncAppender.getName().toLowerCase();
+                    metrics.add(new Metric<>("gauge." + name + ".queued", asyncAppender.getNumberOfElementsInQueue()));
+                    metrics.add(new Metric<>("counter." + name + ".lost", asyncAppender.getLostCount()));
+                }
+            }
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,94 @@
+package api.common.metrics;
+
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.ProxyProcessorSupport;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TimingBeanPostProcessor - adds a {@link TimingInterceptor} to each bean in a timed layer.
+ * <p/>
+ * A layer is named and selected by a pointcut. A bean that is already proxied, for example for method security,
+ * has the interceptor added ahead of its existing advice so the whole call is timed; any other bean is given a
+ * class based proxy so that methods outside the pointcut, such as scheduled tasks, still resolve.
+ */
+public class TimingBeanPostProcessor extends ProxyProcessorSupport implements BeanPostProcessor {
+
+    private final ObjectFactory<ApiMetrics> apiMetrics;
+
+    private final Map<String, Pointcut> layers = new LinkedHashMap<>();
+
+    public TimingBeanPostProcessor(ApiMetrics apiMetrics) {
+        this(() -> apiMetrics);
+    }
+
+    /**
+     * @param apiMetrics - looked up when the first timer is created, so that the metrics bean is not created early
+     *                   along with the post processors and left out of their processing
+     */
+    public TimingBeanPostProcessor(ObjectFactory<ApiMetrics> apiMetrics) {
+        this.apiMetrics = apiMetrics;
+        setProxyTargetClass(true);
+    }
+
+    /**
+     * Time calls to the methods selected by a pointcut. A bean is only timed as part of the first layer it matches.
+     *
+     * @param layer    - the first part of each timer's name
+     * @param pointcut - the classes and methods in the layer
+     */
+    public void addLayer(String layer, Pointcut pointcut) {
+        layers.put(layer, pointcut);
+    }
+
+    /**
+     * @param type - an interface
+     * @return a pointcut selecting the methods of the interface on any class that implements it
+     */
+    public static Pointcut forInterface(final Class<?> type) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return ClassUtils.hasMethod(type, method.getName(), method.getParameterTypes());
+            }
+        };
+        pointcut.setClassFilter(type::isAssignableFrom);
+        return pointcut;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        for (Map.Entry<String, Pointcut> layer : layers.entrySet()) {
+            if (AopUtils.canApply(layer.getValue(), targetClass)) {
+                DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(layer.getValue(),
+                        new TimingInterceptor(apiMetrics, layer.getKey()));
+                if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+                    ((Advised) bean).addAdvisor(0, advisor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.copyFrom(this);
+                proxyFactory.addAdvisor(advisor);
+                return proxyFactory.getProxy(getProxyClassLoader());
+            }
+        }
+        return bean;
+    }
+}
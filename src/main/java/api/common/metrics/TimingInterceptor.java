@@ -0,0 +1,62 @@
+package api.common.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TimingInterceptor - times each call to the methods it advises against a timer named layer.method.
+ * <p/>
+ * A call that returns a {@link ListenableFuture} is timed until the future completes, so asynchronous work is
+ * measured in full rather than only until it is handed over.
+ */
+public class TimingInterceptor implements MethodInterceptor {
+
+    private final ObjectFactory<ApiMetrics> apiMetrics;
+
+    private final String layer;
+
+    private final ConcurrentHashMap<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param apiMetrics - the metrics the timers are registered with, looked up as each method is first called
+     * @param layer      - the first part of each timer's name, such as controller, service or dao
+     */
+    public TimingInterceptor(ObjectFactory<ApiMetrics> apiMetrics, String layer) {
+        this.apiMetrics = apiMetrics;
+        this.layer = layer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        LatencyTimer timer = timerFor(invocation.getMethod());
+        long start = timer.start();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            timer.stop(start, e);
+            throw e;
+        }
+
+        if (result instanceof ListenableFuture) {
+            ((ListenableFuture<?>) result).addCallback(value -> timer.stop(start), e -> timer.stop(start, e));
+        } else {
+            timer.stop(start);
+        }
+        return result;
+    }
+
+    private LatencyTimer timerFor(Method method) {
+        LatencyTimer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> apiMetrics.getObject().timer(layer + "." + key.getName()));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,158 @@
+package api.common.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdaptiveLimiter - limits the number of calls in progress at once, adjusting the limit from the time calls take.
+ * <p/>
+ * The limit follows a latency gradient: a long term average of the round trip time is compared with a short term
+ * one. While recent calls are no slower than the long term average, allowing for the tolerance, the limit grows by
+ * about its square root; once they slow down, queueing has started and the limit shrinks in proportion, by at most
+ * half. Each change is smoothed, and the limit is only raised while at least half of it is in use, so that a
+ * lightly loaded service does not grow a limit it has never tested. The long term average is pulled down when it
+ * is more than twice the short term one, so the limit recovers once a slow period is over.
+ * <p/>
+ * Acquiring a place is lock free; samples are recorded under the limiter's lock.
+ */
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double smoothing;
+
+    private final double rttTolerance;
+
+    private final double shortAlpha;
+
+    private final double longAlpha;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private double estimatedLimit;
+
+    private volatile int limit;
+
+    private double shortRtt;
+
+    private double longRtt;
+
+    /**
+     * @param initialLimit - the limit before any calls have been timed
+     * @param minLimit     - the lowest the limit may fall to
+     * @param maxLimit     - the highest the limit may rise to
+     * @param smoothing    - the fraction of each calculated change applied to the limit, between 0 and 1
+     * @param rttTolerance - how many times slower than the long term average recent calls may be before the limit
+     *                     shrinks, at least 1
+     * @param shortWindow  - the number of calls the short term average is taken over
+     * @param longWindow   - the number of calls the long term average is taken over
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance,
+                           int shortWindow, int longWindow) {
+        if (minLimit < 1 || maxLimit < minLimit || shortWindow < 1 || longWindow < shortWindow) {
+            throw new IllegalArgumentException("Invalid limits or windows");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.shortAlpha = 2.0 / (shortWindow + 1);
+        this.longAlpha = 2.0 / (longWindow + 1);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Ask to start a call. Every successful acquire must be followed by {@link #release()}, and by
+     * {@link #onSample(long, int)} as well where the call's time is to be taken into account.
+     *
+     * @return the number of calls in progress including this one, or 0 if the call must be refused
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Mark the end of a call started with {@link #tryAcquire()}
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjust the limit for the time a call took
+     *
+     * @param rttNanos - the time the call took
+     * @param inFlight - the number of calls in progress when it started
+     */
+    public synchronized void onSample(long rttNanos, int inFlight) {
+
+        if (shortRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) * shortAlpha;
+            longRtt += (rttNanos - longRtt) * longAlpha;
+        }
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return the number of calls allowed in progress at once
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of calls in progress
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of calls refused since the limiter was created
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the short term average round trip time in nanoseconds, 0 before any calls have been timed
+     */
+    public synchronized double getShortRtt() {
+        return shortRtt;
+    }
+
+    /**
+     * @return the long term average round trip time in nanoseconds, 0 before any calls have been timed
+     */
+    public synchronized double getLongRtt() {
+        return longRtt;
+    }
+}
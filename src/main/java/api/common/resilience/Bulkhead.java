@@ -0,0 +1,119 @@
+package api.common.resilience;
+
+import api.common.utils.Deadline;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead - limits the number of calls to a backend in progress at once, so that a slow backend holds at most
+ * that many request threads.
+ * <p/>
+ * A call that cannot start at once waits for up to the maximum wait, or until the current request's deadline, and
+ * is then refused. Where the number of calls waiting is bounded, a call that would go over it is refused at once.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+
+    private final long maxWaitMs;
+
+    private final int maxQueued;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxConcurrent - the number of calls allowed in progress at once
+     * @param maxWaitMs     - how long a call waits for another to finish when the limit is reached, 0 not to wait
+     */
+    public Bulkhead(int maxConcurrent, long maxWaitMs) {
+        this(maxConcurrent, maxWaitMs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxConcurrent - the number of calls allowed in progress at once
+     * @param maxWaitMs     - how long a call waits for another to finish when the limit is reached, 0 not to wait
+     * @param maxQueued     - the number of calls allowed to wait at once
+     */
+    public Bulkhead(int maxConcurrent, long maxWaitMs, int maxQueued) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Ask to start a call. Every successful acquire must be followed by {@link #release()}.
+     *
+     * @return true if the call may start, false if it must be refused
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        boolean acquired = false;
+        if (maxWaitMs > 0 && queued.incrementAndGet() <= maxQueued) {
+            try {
+                acquired = permits.tryAcquire(Deadline.boundMillis(maxWaitMs), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                queued.decrementAndGet();
+            }
+        } else if (maxWaitMs > 0) {
+            queued.decrementAndGet();
+        }
+        if (!acquired) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * Mark the end of a call started with {@link #tryAcquire()}
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return the number of calls allowed in progress at once
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return the number of calls in progress
+     */
+    public int getInUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return the number of calls waiting to start
+     */
+    public int getQueued() {
+        return Math.min(queued.get(), maxQueued);
+    }
+
+    /**
+     * @return the number of further calls that could start now
+     */
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return the number of calls refused since the bulkhead was created
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
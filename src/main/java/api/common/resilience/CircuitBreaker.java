@@ -0,0 +1,218 @@
+package api.common.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * CircuitBreaker - stops calls to a failing backend so that callers fail at once instead of waiting for it.
+ * <p/>
+ * While CLOSED every call is permitted and the outcome of the last windowSize calls is kept. Once at least
+ * minimumCalls have been recorded and either the percentage that failed or the percentage slower than the slow
+ * call duration reaches its threshold, the circuit OPENs and refuses every call. After the open duration the
+ * next call moves it to HALF_OPEN, where a few trial calls are permitted: if their failure and slow call rates
+ * are under the thresholds the circuit closes with an empty window, otherwise it opens again.
+ * <p/>
+ * State is guarded by the breaker's lock, which is only held for a few field updates per call.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+
+    private static final byte SLOW = 2;
+
+    private final String name;
+
+    private final float failureRateThreshold;
+
+    private final float slowCallRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final int minimumCalls;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    private final LongSupplier nanoTime;
+
+    private final LongAdder notPermitted = new LongAdder();
+
+    // Guarded by this
+
+    private State state = State.CLOSED;
+
+    private final byte[] outcomes;
+
+    private int next;
+
+    private int calls;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private long openedAt;
+
+    private int permitsLeft;
+
+    /**
+     * @param name                  - the name the breaker is logged under
+     * @param failureRateThreshold  - the percentage of failed calls that opens the circuit
+     * @param slowCallRateThreshold - the percentage of slow calls that opens the circuit
+     * @param slowCallMs            - the duration at or beyond which a call counts as slow
+     * @param windowSize            - the number of most recent calls the rates are calculated over
+     * @param minimumCalls          - the number of calls needed before the rates are acted on
+     * @param openMs                - how long the circuit stays open before trial calls are permitted
+     * @param halfOpenCalls         - the number of trial calls permitted while half open
+     */
+    public CircuitBreaker(String name, float failureRateThreshold, float slowCallRateThreshold, long slowCallMs,
+                          int windowSize, int minimumCalls, long openMs, int halfOpenCalls) {
+        this(name, failureRateThreshold, slowCallRateThreshold, slowCallMs, windowSize, minimumCalls, openMs,
+                halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, float failureRateThreshold, float slowCallRateThreshold, long slowCallMs,
+                   int windowSize, int minimumCalls, long openMs, int halfOpenCalls, LongSupplier nanoTime) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.outcomes = new byte[Math.max(windowSize, 1)];
+        this.minimumCalls = Math.min(Math.max(minimumCalls, 1), outcomes.length);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.halfOpenCalls = Math.min(Math.max(halfOpenCalls, 1), outcomes.length);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Ask to make a call. Every permitted call must be followed by {@link #onResult(long, boolean)}.
+     *
+     * @return true if the call may go ahead, false if it must be refused
+     */
+    public synchronized boolean tryAcquirePermission() {
+
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openNanos) {
+                notPermitted.increment();
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (permitsLeft == 0) {
+                notPermitted.increment();
+                return false;
+            }
+            permitsLeft--;
+        }
+        return true;
+    }
+
+    /**
+     * Record the outcome of a permitted call
+     *
+     * @param durationNanos - how long the call took
+     * @param failed        - whether the call failed
+     */
+    public synchronized void onResult(long durationNanos, boolean failed) {
+
+        if (state == State.OPEN) {
+            // A call permitted before the circuit opened
+            return;
+        }
+
+        byte outcome = (byte) ((failed ? FAILED : 0) | (durationNanos >= slowCallNanos ? SLOW : 0));
+        if (calls == outcomes.length) {
+            byte oldest = outcomes[next];
+            failures -= oldest & FAILED;
+            slowCalls -= (oldest & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (state == State.HALF_OPEN) {
+            if (calls == halfOpenCalls) {
+                transition(overThreshold() ? State.OPEN : State.CLOSED);
+            }
+        } else if (calls >= minimumCalls && overThreshold()) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * @return the current state, moving to half open if the open duration has passed
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    /**
+     * @return the percentage of recorded calls that failed, or -1 before enough calls have been recorded
+     */
+    public synchronized float getFailureRate() {
+        return calls < minimumCalls ? -1 : failures * 100f / calls;
+    }
+
+    /**
+     * @return the percentage of recorded calls that were slow, or -1 before enough calls have been recorded
+     */
+    public synchronized float getSlowCallRate() {
+        return calls < minimumCalls ? -1 : slowCalls * 100f / calls;
+    }
+
+    /**
+     * @return the number of calls the rates are currently calculated over
+     */
+    public synchronized int getBufferedCalls() {
+        return calls;
+    }
+
+    /**
+     * @return the number of calls refused since the breaker was created
+     */
+    public long getNotPermittedCalls() {
+        return notPermitted.sum();
+    }
+
+    private boolean overThreshold() {
+        return failures * 100f / calls >= failureRateThreshold || slowCalls * 100f / calls >= slowCallRateThreshold;
+    }
+
+    private void transition(State to) {
+
+        if (to == State.OPEN) {
+            logger.warn("Circuit {} opened with {}% of {} calls failed and {}% slow", name,
+                    failures * 100f / calls, calls, slowCalls * 100f / calls);
+            openedAt = nanoTime.getAsLong();
+        } else if (to == State.HALF_OPEN) {
+            logger.info("Circuit {} half open, permitting {} trial calls", name, halfOpenCalls);
+            permitsLeft = halfOpenCalls;
+        } else {
+            logger.info("Circuit {} closed", name);
+        }
+        state = to;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,73 @@
+package api.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * TokenBucket - allows calls at a steady rate with bursts of up to a set number of calls.
+ * <p/>
+ * The bucket holds up to the burst in tokens and gains tokens at the refill rate; each call takes a token and is
+ * refused when there are none. Rather than a token count and a refill time, the bucket holds the single time at
+ * which it would next be full if no more calls were made, so taking a token is one compare and set and no lock is
+ * held.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final LongSupplier nanoTime;
+
+    /**
+     * the time by which the tokens taken so far will have been replaced
+     */
+    private final AtomicLong fullAt;
+
+    /**
+     * @param burst            - the most calls allowed at once, and the tokens the bucket starts with
+     * @param refillPerSecond  - the tokens added each second, the rate calls are allowed at once the burst is used
+     */
+    public TokenBucket(int burst, double refillPerSecond) {
+        this(burst, refillPerSecond, System::nanoTime);
+    }
+
+    TokenBucket(int burst, double refillPerSecond, LongSupplier nanoTime) {
+        if (burst < 1 || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("Burst must be at least 1 and refill greater than 0");
+        }
+        this.intervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond), 1);
+        this.burstNanos = intervalNanos * burst;
+        this.nanoTime = nanoTime;
+        this.fullAt = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Take a token for a call
+     *
+     * @return 0 if the call may go ahead, otherwise the nanoseconds until a token will be available
+     */
+    public long tryAcquire() {
+        while (true) {
+            long now = nanoTime.getAsLong();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return the number of calls that could be made now
+     */
+    public long getAvailable() {
+        long now = nanoTime.getAsLong();
+        return (now + burstNanos - Math.max(fullAt.get(), now)) / intervalNanos;
+    }
+}
@@ -0,0 +1,132 @@
+package api.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CachingAuthenticationProvider - remembers credentials another provider has verified, so that a client sending
+ * the same username and password on every request pays for the password check once per expiry rather than once
+ * per request. This matters once passwords are held with a deliberately slow encoder such as bcrypt.
+ * <p/>
+ * The cache is keyed by a SHA-256 hash of the username and password salted with a value made at random on start
+ * up, so neither the password nor a hash that could be looked up elsewhere is held. The salt fills one block of
+ * the hash and is digested once, so each key costs a single block. Only successful checks are cached; failures
+ * always go to the delegate. A change of password or roles takes effect for a client already cached once its
+ * entry expires. Published on the actuator metrics endpoint as cache.auth.size, hit, miss, eviction and hit.ratio.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider, PublicMetrics {
+
+    private static final String PREFIX = "cache.auth.";
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private static final int SALT_LENGTH = 64;
+
+    private final AuthenticationProvider delegate;
+
+    private final Cache<ByteBuffer, Authentication> verified;
+
+    /**
+     * a digest that has taken in the salt, copied for each key
+     */
+    private final MessageDigest salted;
+
+    /**
+     * @param delegate                - the provider that checks credentials not found in the cache
+     * @param maximumSize             - the most verified credentials kept, 0 to check every request
+     * @param expireAfterWriteSeconds - how long credentials are trusted without being checked again
+     */
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, long maximumSize, long expireAfterWriteSeconds) {
+
+        this.delegate = delegate;
+        this.verified = maximumSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        byte[] salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        try {
+            this.salted = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to create " + ALGORITHM, e);
+        }
+        salted.update(salt);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+
+        Object credentials = authentication.getCredentials();
+        if (credentials == null || verified == null) {
+            return delegate.authenticate(authentication);
+        }
+        ByteBuffer key = key(authentication.getName(), credentials.toString());
+        Authentication result = verified.getIfPresent(key);
+        if (result == null) {
+            result = delegate.authenticate(authentication);
+            if (result == null) {
+                return null;
+            }
+            verified.put(key, result);
+        }
+
+        // Each request gets its own token, as the caller may set details on it or erase its credentials
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+                result.getPrincipal(), null, result.getAuthorities());
+        token.setDetails(authentication.getDetails());
+        return token;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication)
+                && delegate.supports(authentication);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        if (verified == null) {
+            return Collections.emptyList();
+        }
+        CacheStats stats = verified.stats();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Long>(PREFIX + "size", verified.estimatedSize()));
+        metrics.add(new Metric<Long>(PREFIX + "hit", stats.hitCount()));
+        metrics.add(new Metric<Long>(PREFIX + "miss", stats.missCount()));
+        metrics.add(new Metric<Long>(PREFIX + "eviction", stats.evictionCount()));
+        metrics.add(new Metric<Double>(PREFIX + "hit.ratio", stats.hitRate()));
+        return metrics;
+    }
+
+    private ByteBuffer key(String username, String password) {
+        MessageDigest digest;
+        try {
+            digest = (MessageDigest) salted.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " digest cannot be copied", e);
+        }
+        digest.update(username.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return ByteBuffer.wrap(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+}
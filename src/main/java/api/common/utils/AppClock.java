@@ -0,0 +1,241 @@
+package api.common.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.util.Date;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppClock - the application's view of the current time, which is either the time from an underlying clock or a
+ * fixed session date.
+ * <p/>
+ * The session date, if any, is parsed once when the clock is created. {@link #coarseMillis()} is a cached reading
+ * for hot paths, refreshed by {@link #tick()} either from a background thread started with {@link #start(long)} or
+ * directly by tests. The current tax year is cached together with the instants at which it starts and ends, so it
+ * is only recalculated when the time passes a tax year boundary.
+ * <p/>
+ * The application uses the clock as a Spring bean, which it installs as the default with {@link #setDefault(AppClock)}
+ * so that static callers share it. Without an installed clock, {@link #getDefault()} follows the session_date JVM
+ * argument and the default time zone.
+ */
+public class AppClock {
+
+    /**
+     * the format of the session date provided to the JVM
+     */
+    public static final String SESSION_DATE_MASK = "dd-MM-yyyy";
+
+    /**
+     * the name of the session date parameter that is provided to the JVM should session dates be required
+     */
+    public static final String SESSION_DATE_JVM_ARG = "session_date";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppClock.class);
+
+    private static volatile AppClock defaultClock;
+
+    private static volatile AppClock installedClock;
+
+    private final Clock source;
+
+    private final String sessionDate;
+
+    private final String zoneId;
+
+    /**
+     * the session date as epoch milliseconds, or null when the underlying clock is used
+     */
+    private final Long sessionMillis;
+
+    private volatile long coarseMillis;
+
+    private volatile TaxYearPeriod taxYearPeriod;
+
+    private volatile ScheduledExecutorService ticker;
+
+    /**
+     * @param source      - the clock to read when no session date is set
+     * @param sessionDate - the session date in the format dd-MM-yyyy, or null to use the underlying clock
+     */
+    public AppClock(Clock source, String sessionDate) {
+        this.source = source;
+        this.sessionDate = sessionDate;
+        this.zoneId = TimeZone.getDefault().getID();
+        this.sessionMillis = parseSessionDate(sessionDate);
+        this.coarseMillis = sessionMillis != null ? sessionMillis : source.millis();
+    }
+
+    /**
+     * @return the installed clock, if any, otherwise the clock for the session_date JVM argument, if set, and the
+     * system clock, shared until either the argument or the default time zone changes
+     */
+    public static AppClock getDefault() {
+        AppClock installed = installedClock;
+        if (installed != null) {
+            return installed;
+        }
+        String sessionDate = System.getProperty(SESSION_DATE_JVM_ARG);
+        AppClock clock = defaultClock;
+        if (clock == null || !Objects.equals(clock.sessionDate, sessionDate)
+                || !clock.zoneId.equals(TimeZone.getDefault().getID())) {
+            clock = new AppClock(Clock.systemDefaultZone(), sessionDate);
+            defaultClock = clock;
+        }
+        return clock;
+    }
+
+    /**
+     * Make a clock the one returned by {@link #getDefault()}, whatever later changes there are to the session_date
+     * argument or the default time zone
+     *
+     * @param clock - the clock to install, or null to go back to following the argument and time zone
+     */
+    public static void setDefault(AppClock clock) {
+        installedClock = clock;
+    }
+
+    /**
+     * @return the current time, or the session date if set, as epoch milliseconds
+     */
+    public long millis() {
+        return sessionMillis != null ? sessionMillis : source.millis();
+    }
+
+    /**
+     * @return the current date/time, or the session date if set (time portion will be 00:00:00)
+     */
+    public Date currentDate() {
+        return new Date(millis());
+    }
+
+    /**
+     * @return the time as of the last tick, as epoch milliseconds, or the current time if the clock is not ticking
+     */
+    public long coarseMillis() {
+        if (sessionMillis != null) {
+            return sessionMillis;
+        }
+        return ticker != null ? coarseMillis : source.millis();
+    }
+
+    /**
+     * Refresh the cached time read by {@link #coarseMillis()}
+     */
+    public void tick() {
+        if (sessionMillis == null) {
+            coarseMillis = source.millis();
+        }
+    }
+
+    /**
+     * Start a daemon thread that ticks the clock at a fixed interval. Has no effect when a session date is set.
+     *
+     * @param tickMillis - the interval between ticks in milliseconds
+     */
+    public synchronized void start(long tickMillis) {
+        if (sessionMillis != null || ticker != null) {
+            return;
+        }
+        tick();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "app-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        ticker = executor;
+    }
+
+    /**
+     * Stop the ticking thread, after which {@link #coarseMillis()} reads the underlying clock
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * @return the tax year for the current time, as the year in which it ends
+     */
+    public int currentTaxYear() {
+        return currentTaxYearPeriod().year;
+    }
+
+    /**
+     * As {@link #currentTaxYear()}, returning the year as a string
+     */
+    public String currentTaxYearName() {
+        return currentTaxYearPeriod().name;
+    }
+
+    private TaxYearPeriod currentTaxYearPeriod() {
+        long now = millis();
+        TaxYearPeriod period = taxYearPeriod;
+        if (period == null || !period.contains(now)) {
+            period = TaxYearPeriod.containing(now);
+            if (period.contains(now)) {
+                taxYearPeriod = period;
+            }
+        }
+        return period;
+    }
+
+    private static Long parseSessionDate(String sessionDate) {
+        if (sessionDate == null) {
+            return null;
+        }
+        try {
+            long millis = DateEngine.parse(sessionDate, SESSION_DATE_MASK);
+            LOGGER.info("Session Date has been set to [{}]", new Date(millis));
+            return millis;
+        } catch (ParseException | IllegalArgumentException ex) {
+            LOGGER.warn("Unable to parse session date [{}] system date used instead", sessionDate);
+            return null;
+        }
+    }
+
+    /**
+     * A tax year and the instants, exclusive and inclusive, at which it starts and ends
+     */
+    private static final class TaxYearPeriod {
+
+        private final int year;
+
+        private final String name;
+
+        private final long start;
+
+        private final long end;
+
+        private TaxYearPeriod(int year, long start, long end) {
+            this.year = year;
+            this.name = String.valueOf(year);
+            this.start = start;
+            this.end = end;
+        }
+
+        private static TaxYearPeriod containing(long epochMilli) {
+            int year = TaxYearCalculator.getInstance().taxYear(epochMilli);
+            try {
+                return new TaxYearPeriod(year, DateEngine.parse("05-04-" + (year - 1), SESSION_DATE_MASK),
+                        DateEngine.parse("05-04-" + year, SESSION_DATE_MASK));
+            } catch (ParseException e) {
+                // Not cached, as the period does not contain the instant
+                return new TaxYearPeriod(year, epochMilli, epochMilli);
+            }
+        }
+
+        private boolean contains(long epochMilli) {
+            return epochMilli > start && epochMilli <= end;
+        }
+    }
+}
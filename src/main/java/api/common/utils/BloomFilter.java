@@ -0,0 +1,144 @@
+package api.common.utils;
+
+/**
+ * BloomFilter - a compact set of strings that can answer "definitely absent" or "possibly present".
+ * <p/>
+ * The filter is sized from the number of strings expected and the false positive rate wanted. A string that was
+ * put is always reported as possibly present; a string that was not is wrongly reported as present at about the
+ * requested rate while no more than the expected number have been put, and more often beyond that.
+ * <p/>
+ * Puts are not thread safe. Build the filter on one thread and publish it through a volatile field or another
+ * safe hand over, after which any number of threads can call {@link #mightContain(String)}.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final long[] bits;
+
+    private final long bitSize;
+
+    private final int hashes;
+
+    private final long expectedInsertions;
+
+    private long insertions;
+
+    private long bitsSet;
+
+    /**
+     * @param expectedInsertions - the number of strings expected to be put
+     * @param falsePositiveRate  - the rate at which absent strings may be reported as present, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        this.expectedInsertions = Math.max(expectedInsertions, 1);
+
+        long optimalBits = (long) Math.ceil(-this.expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long words = Math.min(Math.max((optimalBits + 63) >>> 6, 1), Integer.MAX_VALUE - 8);
+        this.bits = new long[(int) words];
+        this.bitSize = words << 6;
+        this.hashes = (int) Math.max(1, Math.round((double) bitSize / this.expectedInsertions * LN2));
+    }
+
+    /**
+     * Add a string to the filter
+     *
+     * @param value - the string to add
+     */
+    public void put(String value) {
+
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long combined = hash1;
+        for (int i = 0; i < hashes; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                bitsSet++;
+            }
+            combined += hash2;
+        }
+        insertions++;
+    }
+
+    /**
+     * @param value - the string to look for
+     * @return false if the string was definitely never put, true if it may have been
+     */
+    public boolean mightContain(String value) {
+
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long combined = hash1;
+        for (int i = 0; i < hashes; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * @return the rate at which absent strings are expected to be reported as present, given the bits set so far
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet / bitSize, hashes);
+    }
+
+    /**
+     * @return the number of puts made
+     */
+    public long getInsertions() {
+        return insertions;
+    }
+
+    /**
+     * @return the number of strings the filter was sized for
+     */
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * @return the size of the filter in bits
+     */
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    /**
+     * @return the number of bits tested for each string
+     */
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * 64 bit FNV-1a over the characters of the string, finished with a mix so that every bit of the result
+     * depends on every character
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The finalisation step of MurmurHash3
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
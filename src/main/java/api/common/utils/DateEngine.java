@@ -0,0 +1,420 @@
+package api.common.utils;
+
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DateEngine - thread safe date parsing, validation and formatting giving the same results as
+ * {@link SimpleDateFormat} without creating one per call.
+ * <p/>
+ * Each pattern is compiled once into an immutable form that is cached and shared between threads. Patterns made up
+ * of numeric year, month, day, hour, minute, second and millisecond fields separated by literal characters are
+ * parsed by scanning the digits directly, with the same variable width rules as SimpleDateFormat, and formatted with
+ * a cached {@link DateTimeFormatter}. Date arithmetic is done on primitive epoch days and epoch milliseconds.
+ * <p/>
+ * Anything this fast path cannot reproduce exactly is handed to a SimpleDateFormat as before: other pattern letters,
+ * two digit years, quoted text, whitespace, dates before 1600 (where the Julian calendar applies) or from the year
+ * 100,000, local times close to a time zone transition, and locales with a non Gregorian calendar or non ASCII
+ * digits.
+ */
+public final class DateEngine {
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * the range of years handled without SimpleDateFormat
+     */
+    private static final int MIN_YEAR = 1600;
+    private static final int MAX_YEAR = 100000;
+
+    private static final long MIN_EPOCH_DAY = LocalDate.of(MIN_YEAR, 1, 1).toEpochDay();
+    private static final long MAX_EPOCH_DAY = LocalDate.of(MAX_YEAR, 1, 1).toEpochDay();
+
+    /**
+     * results of the fast path that are not epoch milliseconds
+     */
+    private static final long INVALID = Long.MIN_VALUE;
+    private static final long UNSUPPORTED = Long.MIN_VALUE + 1;
+
+    /**
+     * the number of compiled patterns kept, patterns beyond this are compiled on each call
+     */
+    private static final int MAXIMUM_PATTERNS = 256;
+
+    private static final ConcurrentHashMap<String, CompiledPattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private static volatile LocaleSupport localeSupport = new LocaleSupport(null, false);
+
+    private DateEngine() {
+    }
+
+    /**
+     * Strictly validates a date against a pattern, as a non lenient SimpleDateFormat would
+     *
+     * @param text    - the date to check
+     * @param pattern - a SimpleDateFormat pattern eg "dd-MM-yyyy"
+     * @return true if the date matches the pattern and is a real date
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public static boolean isValid(String text, String pattern) {
+        CompiledPattern compiled = compile(pattern);
+        long result = isFastPathLocale() ? compiled.parse(text, false) : UNSUPPORTED;
+        if (result == UNSUPPORTED) {
+            return legacyParse(text, pattern, false) != null;
+        }
+        return result != INVALID;
+    }
+
+    /**
+     * Leniently parses a date, as a default SimpleDateFormat would
+     *
+     * @param text    - the date to parse
+     * @param pattern - a SimpleDateFormat pattern eg "dd-MM-yyyy"
+     * @return the date as milliseconds since the epoch
+     * @throws ParseException           if the date does not match the pattern
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public static long parse(String text, String pattern) throws ParseException {
+        CompiledPattern compiled = compile(pattern);
+        long result = isFastPathLocale() ? compiled.parse(text, true) : UNSUPPORTED;
+        if (result == UNSUPPORTED) {
+            Date date = legacyParse(text, pattern, true);
+            if (date == null) {
+                throw new ParseException("Unparseable date: \"" + text + "\"", 0);
+            }
+            return date.getTime();
+        }
+        if (result == INVALID) {
+            throw new ParseException("Unparseable date: \"" + text + "\"", 0);
+        }
+        return result;
+    }
+
+    /**
+     * Formats a date, as a SimpleDateFormat would
+     *
+     * @param epochMilli - the date as milliseconds since the epoch
+     * @param pattern    - a SimpleDateFormat pattern eg "dd-MM-yyyy"
+     * @return the formatted date
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public static String format(long epochMilli, String pattern) {
+        CompiledPattern compiled = compile(pattern);
+        if (compiled.formatter != null && isFastPathLocale()) {
+            int offset = TimeZone.getDefault().getOffset(epochMilli);
+            long localMilli = epochMilli + offset;
+            long epochDay = Math.floorDiv(localMilli, MILLIS_PER_DAY);
+            if (offset % 1000 == 0 && epochDay >= MIN_EPOCH_DAY && epochDay < MAX_EPOCH_DAY) {
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(epochMilli, 1000L),
+                        (int) Math.floorMod(epochMilli, 1000L) * 1000000, ZoneOffset.ofTotalSeconds(offset / 1000));
+                return compiled.formatter.format(dateTime);
+            }
+        }
+        return new SimpleDateFormat(pattern).format(new Date(epochMilli));
+    }
+
+    /**
+     * @param epochMilli - an instant as milliseconds since the epoch
+     * @return the day in the default time zone containing the instant, as days since 1970-01-01
+     */
+    public static long toEpochDay(long epochMilli) {
+        return Math.floorDiv(epochMilli + TimeZone.getDefault().getOffset(epochMilli), MILLIS_PER_DAY);
+    }
+
+    /**
+     * The tax year containing an instant. The tax year ending in a given year runs up to and including the first
+     * millisecond of 5th April of that year in the default time zone; anything after belongs to the next tax year.
+     *
+     * @param epochMilli - an instant as milliseconds since the epoch
+     * @return the calendar year in which the tax year ends
+     */
+    public static int taxYear(long epochMilli) {
+        long epochDay = toEpochDay(epochMilli);
+        if (isFastPathLocale() && epochDay >= MIN_EPOCH_DAY && epochDay < MAX_EPOCH_DAY) {
+            int year = LocalDate.ofEpochDay(epochDay).getYear();
+            long taxYearEnd = toEpochMilli(LocalDate.of(year, 4, 5).toEpochDay() * MILLIS_PER_DAY);
+            if (taxYearEnd != UNSUPPORTED) {
+                return epochMilli > taxYearEnd ? year + 1 : year;
+            }
+        }
+        return legacyTaxYear(epochMilli);
+    }
+
+    /**
+     * Converts a local date and time in the default time zone, as milliseconds since the epoch ignoring the zone,
+     * to an instant. Times within a day of a change in the zone's offset are left to SimpleDateFormat, which has
+     * its own rules for times that occur twice or not at all.
+     */
+    static long toEpochMilli(long localMilli) {
+        TimeZone zone = TimeZone.getDefault();
+        int offset = zone.getOffset(localMilli - MILLIS_PER_DAY);
+        if (offset != zone.getOffset(localMilli + MILLIS_PER_DAY) || offset != zone.getOffset(localMilli - offset)) {
+            return UNSUPPORTED;
+        }
+        return localMilli - offset;
+    }
+
+    static CompiledPattern compile(String pattern) {
+        CompiledPattern compiled = PATTERNS.get(pattern);
+        if (compiled == null) {
+            compiled = new CompiledPattern(pattern);
+            if (PATTERNS.size() < MAXIMUM_PATTERNS) {
+                PATTERNS.putIfAbsent(pattern, compiled);
+            }
+        }
+        if (compiled.invalid != null) {
+            throw new IllegalArgumentException(compiled.invalid);
+        }
+        return compiled;
+    }
+
+    /**
+     * The fast path assumes a Gregorian calendar and ASCII digits, which holds for the default format locale of
+     * almost every system. The check is repeated only when the default locale changes.
+     */
+    static boolean isFastPathLocale() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleSupport support = localeSupport;
+        if (support.locale != locale) {
+            support = new LocaleSupport(locale, "gregory".equals(
+                    Calendar.getInstance(locale).getCalendarType())
+                    && DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0');
+            localeSupport = support;
+        }
+        return support.supported;
+    }
+
+    private static Date legacyParse(String text, String pattern, boolean lenient) {
+        SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+        sdf.setLenient(lenient);
+        ParsePosition position = new ParsePosition(0);
+        Date date = sdf.parse(text, position);
+        return position.getIndex() == 0 ? null : date;
+    }
+
+    private static int legacyTaxYear(long epochMilli) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(epochMilli);
+        int year = cal.get(Calendar.YEAR);
+        Date taxYearEnd = legacyParse("05-04-" + year, "dd-MM-yyyy", true);
+        return taxYearEnd != null && epochMilli > taxYearEnd.getTime() ? year + 1 : year;
+    }
+
+    private static final class LocaleSupport {
+
+        private final Locale locale;
+
+        private final boolean supported;
+
+        private LocaleSupport(Locale locale, boolean supported) {
+            this.locale = locale;
+            this.supported = supported;
+        }
+    }
+
+    /**
+     * A pattern split into numeric fields and the literal characters between them
+     */
+    static final class CompiledPattern {
+
+        private static final String FIELDS = "yMdHmsS";
+
+        private static final ChronoField[] CHRONO_FIELDS = {ChronoField.YEAR_OF_ERA, ChronoField.MONTH_OF_YEAR,
+                ChronoField.DAY_OF_MONTH, ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR,
+                ChronoField.SECOND_OF_MINUTE, ChronoField.MILLI_OF_SECOND};
+
+        private static final int YEAR = 0, MONTH = 1, DAY = 2, HOUR = 3, MINUTE = 4, SECOND = 5, MILLI = 6;
+
+        /**
+         * the field index for each token, or -1 for a literal
+         */
+        private final int[] fields;
+
+        private final char[] literals;
+
+        /**
+         * the formatter for patterns the fast path supports, otherwise null
+         */
+        final DateTimeFormatter formatter;
+
+        /**
+         * the reason SimpleDateFormat gives for rejecting the pattern, if it is not valid
+         */
+        final String invalid;
+
+        CompiledPattern(String pattern) {
+
+            String invalidPattern = null;
+            try {
+                new SimpleDateFormat(pattern);
+            } catch (IllegalArgumentException e) {
+                invalidPattern = String.valueOf(e.getMessage());
+            }
+            this.invalid = invalidPattern;
+
+            int length = pattern.length();
+            int[] tokenFields = new int[length];
+            char[] tokenLiterals = new char[length];
+            int tokens = 0;
+            int seen = 0;
+            boolean supported = invalidPattern == null;
+            DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+
+            for (int i = 0; i < length && supported; ) {
+                char c = pattern.charAt(i);
+                int field = FIELDS.indexOf(c);
+                if (field >= 0) {
+                    int count = 1;
+                    while (i + count < length && pattern.charAt(i + count) == c) {
+                        count++;
+                    }
+                    // Two digit years, text months, repeated and adjacent fields all have special rules
+                    supported = !(field == YEAR && count <= 2) && !(field == MONTH && count > 2) && count <= 19
+                            && (seen & (1 << field)) == 0 && (tokens == 0 || tokenFields[tokens - 1] < 0);
+                    seen |= 1 << field;
+                    tokenFields[tokens++] = field;
+                    builder.appendValue(CHRONO_FIELDS[field], count, 19, SignStyle.NORMAL);
+                    i += count;
+                } else {
+                    supported = c < 0x80 && !Character.isLetterOrDigit(c) && !Character.isWhitespace(c) && c != '\'';
+                    tokenFields[tokens] = -1;
+                    tokenLiterals[tokens++] = c;
+                    builder.appendLiteral(c);
+                    i++;
+                }
+            }
+
+            if (supported && seen != 0) {
+                this.fields = Arrays.copyOf(tokenFields, tokens);
+                this.literals = Arrays.copyOf(tokenLiterals, tokens);
+                this.formatter = builder.toFormatter(Locale.ROOT);
+            } else {
+                this.fields = null;
+                this.literals = null;
+                this.formatter = null;
+            }
+        }
+
+        /**
+         * Parse a date as SimpleDateFormat would, reading digits up to the next literal and ignoring any text after
+         * the final field.
+         *
+         * @return epoch milliseconds, INVALID if SimpleDateFormat would reject the text or UNSUPPORTED if the result
+         * can only be decided by SimpleDateFormat
+         */
+        long parse(String text, boolean lenient) {
+
+            if (fields == null) {
+                return UNSUPPORTED;
+            }
+
+            long year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, milli = 0;
+            int length = text.length();
+            int position = 0;
+
+            for (int t = 0; t < fields.length; t++) {
+                int field = fields[t];
+                if (field < 0) {
+                    if (position >= length) {
+                        return INVALID;
+                    }
+                    if (text.charAt(position) != literals[t]) {
+                        // Some Java versions let whitespace in the text stand in for literals
+                        return Character.isWhitespace(text.charAt(position)) ? UNSUPPORTED : INVALID;
+                    }
+                    position++;
+                    continue;
+                }
+
+                if (position >= length) {
+                    return INVALID;
+                }
+                char c = text.charAt(position);
+                if (c < '0' || c > '9') {
+                    // Signs, spaces, non ASCII digits and the like are read by SimpleDateFormat's number parser
+                    return c < 0x80 && !Character.isLetter(c) && c != '-' && c != '+' && c != '.' && c != ','
+                            && !Character.isWhitespace(c) ? INVALID : UNSUPPORTED;
+                }
+                long value = 0;
+                int digits = 0;
+                while (position < length && (c = text.charAt(position)) >= '0' && c <= '9') {
+                    if (++digits > 9) {
+                        return UNSUPPORTED;
+                    }
+                    value = value * 10 + (c - '0');
+                    position++;
+                }
+                if (position < length && (c == '.' || c == ',' || Character.isLetter(c) || c >= 0x80)) {
+                    return UNSUPPORTED;
+                }
+
+                switch (field) {
+                    case YEAR:
+                        year = value;
+                        break;
+                    case MONTH:
+                        month = value;
+                        break;
+                    case DAY:
+                        day = value;
+                        break;
+                    case HOUR:
+                        hour = value;
+                        break;
+                    case MINUTE:
+                        minute = value;
+                        break;
+                    case SECOND:
+                        second = value;
+                        break;
+                    default:
+                        milli = value;
+                }
+            }
+
+            if (year < MIN_YEAR || year >= MAX_YEAR) {
+                return UNSUPPORTED;
+            }
+
+            long epochDay;
+            if (lenient) {
+                // Out of range values carry into the next field, as a lenient Calendar does
+                long months = year * 12 + month - 1;
+                long normalisedYear = Math.floorDiv(months, 12);
+                if (normalisedYear < MIN_YEAR || normalisedYear >= MAX_YEAR) {
+                    return UNSUPPORTED;
+                }
+                epochDay = LocalDate.of((int) normalisedYear, (int) Math.floorMod(months, 12) + 1, 1).toEpochDay()
+                        + day - 1;
+            } else {
+                if (month < 1 || month > 12 || day < 1 || hour > 23 || minute > 59 || second > 59 || milli > 999
+                        || day > LocalDate.of((int) year, (int) month, 1).lengthOfMonth()) {
+                    return INVALID;
+                }
+                epochDay = LocalDate.of((int) year, (int) month, (int) day).toEpochDay();
+            }
+
+            long localMilli = epochDay * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + milli;
+            long localDay = Math.floorDiv(localMilli, MILLIS_PER_DAY);
+            if (localDay < MIN_EPOCH_DAY || localDay >= MAX_EPOCH_DAY) {
+                return UNSUPPORTED;
+            }
+            return toEpochMilli(localMilli);
+        }
+    }
+}
@@ -5,8 +5,6 @@ import org.slf4j.LoggerFactory;
 import api.common.exceptions.InternalServerErrorException;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
@@ -15,21 +13,6 @@ import java.util.concurrent.TimeUnit;
  */
 public class DateUtils {
 
-    /**
-     * the format of the session date provided to the JVM
-     */
-    private static final String SESSION_DATE_MASK = "dd-MM-yyyy";
-
-    /**
-     * the name of the session date parameter that is provided to the JVM should session dates be required
-     */
-    private static final String SESSION_DATE_JVM_ARG = "session_date";
-
-    /**
-     * the final day of a tax year is 5th April
-     **/
-    private static final String TAX_YEAR_END = "05-04-";
-
     private static Logger LOGGER = LoggerFactory.getLogger(DateUtils.class);
 
     /**
@@ -41,24 +24,7 @@ public class DateUtils {
      * @return a date object equivalent to the current date/time or a session date if specified
      */
     public static Date getCurrentDate() {
-
-        //check if the -Dsession_date=dd-mm-yyyy arg has been set or passed to the JVM
-        String sessionDate = System.getProperty(SESSION_DATE_JVM_ARG);
-        Date currentDate;
-        if (sessionDate != null) {
-            try {
-                currentDate = new SimpleDateFormat(SESSION_DATE_MASK).parse(sessionDate);
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Session Date has been set to [{}]", currentDate.toString());
-                }
-            } catch (Exception ex) {
-                LOGGER.warn("Unable to parse session date [{}] system date used instead", sessionDate);
-                currentDate = new Date();
-            }
-        } else {
-            currentDate = new Date();
-        }
-        return currentDate;
+        return AppClock.getDefault().currentDate();
     }
 
     /**
@@ -69,7 +35,7 @@ public class DateUtils {
      * @return a 4 character string object representing a tax year
      */
     public static String getCurrentTaxYear() {
-        return getTaxYear(getCurrentDate());
+        return AppClock.getDefault().currentTaxYearName();
     }
 
     /**
@@ -86,22 +52,31 @@ public class DateUtils {
             throw new InternalServerErrorException();
         }
 
-        //Get the calendar year of the date
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        int year = cal.get(Calendar.YEAR);
-
-        //Create a Date object representing the end of the tax year
-        String taxYearDate = TAX_YEAR_END + year;
-
-        Date taxYear = getDate(taxYearDate, SESSION_DATE_MASK);
+        return TaxYearCalculator.getInstance().taxYearName(date.getTime());
+    }
 
-        if (date.after(taxYear)) {
-            return String.valueOf(year + 1);
-        } else {
-            return String.valueOf(year);
-        }
+    /**
+     * getTaxYears - the tax year for each of many dates in one pass, for bulk processing.
+     * <p/>
+     * Tax year runs 6th April to 5th April
+     *
+     * @param dates - the dates to be checked, none of which may be null
+     * @return the tax year for each date as the year in which it ends, in the same order
+     */
+    public static int[] getTaxYears(Date[] dates) {
+        return TaxYearCalculator.getInstance().taxYears(dates);
+    }
 
+    /**
+     * getTaxYears - the tax year for each of many instants in one pass, for bulk processing.
+     * <p/>
+     * Tax year runs 6th April to 5th April
+     *
+     * @param epochMillis - the instants to be checked, as milliseconds since the epoch
+     * @return the tax year for each instant as the year in which it ends, in the same order
+     */
+    public static int[] getTaxYears(long[] epochMillis) {
+        return TaxYearCalculator.getInstance().taxYears(epochMillis);
     }
 
     /**
@@ -118,25 +93,18 @@ public class DateUtils {
             return false;
         }
 
-        SimpleDateFormat sdf = new SimpleDateFormat();
+        // The date is checked strictly against the format, so a day or month out of range is not valid
         try {
-            sdf.applyPattern(dateFormat);
-        } catch (Exception e) {
+            if (DateEngine.isValid(inputDate, dateFormat)) {
+                return true;
+            }
+        } catch (IllegalArgumentException e) {
             LOGGER.debug("Invalid dateFormat {}", dateFormat);
             return false;
         }
-        sdf.setLenient(false);
 
-        // The method tries to parse the date into a date object of the form dateFormat.
-        // If an exception is thrown the method returns false, whereas a successful parse will return true
-        try {
-            sdf.parse(inputDate);
-        } catch (ParseException e) {
-            LOGGER.debug("Unable to parse {} using format {}", inputDate, dateFormat);
-            return false;
-        }
-
-        return true;
+        LOGGER.debug("Unable to parse {} using format {}", inputDate, dateFormat);
+        return false;
     }
 
     /**
@@ -147,28 +115,7 @@ public class DateUtils {
      * @return returns a Date object for the supplied date String.
      */
     public static Date getDate(String dateString, String dateFormat) {
-
-        if (dateString == null || dateString.equals("") || dateFormat.equals("")) {
-            LOGGER.warn("Empty inputDate [{}] or dateFormat [{}]", dateString, dateFormat);
-            throw new InternalServerErrorException();
-        }
-
-        SimpleDateFormat sdf = new SimpleDateFormat();
-        try {
-            sdf.applyPattern(dateFormat);
-        } catch (Exception e) {
-            LOGGER.warn("Invalid dateFormat {}", dateFormat);
-            throw new InternalServerErrorException();
-        }
-
-        // The method tries to parse the date into a date object of the form dateFormat.
-        // If an exception is thrown the method returns false, whereas a successful parse will return true
-        try {
-            return sdf.parse(dateString);
-        } catch (ParseException e) {
-            LOGGER.warn("Unable to parse {} using dateFormat {}", dateString, dateFormat);
-            throw new InternalServerErrorException();
-        }
+        return new Date(getTime(dateString, dateFormat));
     }
 
     /**
@@ -185,17 +132,12 @@ public class DateUtils {
             throw new InternalServerErrorException();
         }
 
-        SimpleDateFormat sdf = new SimpleDateFormat();
         try {
-            sdf.applyPattern(dateFormat);
-        } catch (Exception e) {
+            return DateEngine.format(inputDate.getTime(), dateFormat);
+        } catch (IllegalArgumentException e) {
             LOGGER.warn("Invalid dateFormat {}", dateFormat);
             throw new InternalServerErrorException();
         }
-        sdf.setLenient(false);
-        // The method tries to parse the date into a date object of the form dateFormat.
-
-        return sdf.format(inputDate);
     }
 
     /**
@@ -207,7 +149,7 @@ public class DateUtils {
      * @return this returns true when the first date occurs before the second, and false when it is the same date or after the other date
      */
     public static boolean dateOrderChecker(String startDate, String endDate, String dateFormat) {
-        return getDate(startDate, dateFormat).before(getDate(endDate, dateFormat));
+        return getTime(startDate, dateFormat) < getTime(endDate, dateFormat);
     }
 
     /**
@@ -222,10 +164,7 @@ public class DateUtils {
      */
     public static boolean timeBetweenDateChecker(String startDate, String endDate, String dateFormat, int maxDatePeriod) {
 
-        Date start = getDate(startDate, dateFormat);
-        Date end = getDate(endDate, dateFormat);
-
-        return isDatesWithinDaysThreshold(start, end, maxDatePeriod);
+        return isWithinDaysThreshold(getTime(startDate, dateFormat), getTime(endDate, dateFormat), maxDatePeriod);
     }
 
     /**
@@ -239,15 +178,14 @@ public class DateUtils {
     public static boolean isDatesWithinDaysThreshold(Date startDate, Date endDate, int maxDatePeriod) {
 
         LOGGER.debug("Comparing start date {} with end date {} using duration in days of {}", startDate, endDate, maxDatePeriod);
-        boolean validTime = false;
 
-        long timeDifferenceMilliseconds = endDate.getTime() - startDate.getTime();
-        long timeDifferenceDays = TimeUnit.MILLISECONDS.toDays(timeDifferenceMilliseconds);
-        if ((timeDifferenceDays < maxDatePeriod) && (timeDifferenceDays > 0)) {
-            validTime = true;
-        }
+        return isWithinDaysThreshold(startDate.getTime(), endDate.getTime(), maxDatePeriod);
+    }
+
+    private static boolean isWithinDaysThreshold(long startTime, long endTime, int maxDatePeriod) {
 
-        return validTime;
+        long timeDifferenceDays = TimeUnit.MILLISECONDS.toDays(endTime - startTime);
+        return (timeDifferenceDays < maxDatePeriod) && (timeDifferenceDays > 0);
     }
 
     /**
@@ -263,4 +201,25 @@ public class DateUtils {
         }
         return null;
     }
+
+    /**
+     * Parses a date leniently, as getDate does, returning the milliseconds since the epoch
+     */
+    private static long getTime(String dateString, String dateFormat) {
+
+        if (dateString == null || dateString.equals("") || dateFormat.equals("")) {
+            LOGGER.warn("Empty inputDate [{}] or dateFormat [{}]", dateString, dateFormat);
+            throw new InternalServerErrorException();
+        }
+
+        try {
+            return DateEngine.parse(dateString, dateFormat);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid dateFormat {}", dateFormat);
+            throw new InternalServerErrorException();
+        } catch (ParseException e) {
+            LOGGER.warn("Unable to parse {} using dateFormat {}", dateString, dateFormat);
+            throw new InternalServerErrorException();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package api.common.utils;
+
+import api.common.exceptions.DeadlineExceededException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deadline - the time by which the request being handled must be answered.
+ * <p/>
+ * The deadline of the current request is held for the thread handling it, so that each layer can check it, or
+ * bound its own waits by it, without it being passed into every call. Work handed to another thread must carry
+ * the deadline with it. Requests found to have run out of time are counted by the stage they reached.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private static final ConcurrentHashMap<String, LongAdder> EXPIRED = new ConcurrentHashMap<>();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeout - the time allowed from now
+     * @param unit    - the unit of the timeout
+     * @return a deadline that long from now
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the deadline of the request the current thread is handling, or null if it has none
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Set or, given null, clear the deadline for the current thread
+     *
+     * @param deadline - the deadline of the request the thread is handling
+     */
+    public static void set(Deadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    /**
+     * Refuse to go on with the current request if its deadline has passed
+     *
+     * @param stage - where in handling the request the check is made, the counts are kept by stage
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static void check(String stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw expired(stage);
+        }
+    }
+
+    /**
+     * Bound a timeout by the time left for the current request
+     *
+     * @param timeoutMs - the timeout that applies when there is no deadline, 0 or less for none
+     * @return the lesser of the timeout and the milliseconds left, at least 1 when there is a deadline
+     */
+    public static long boundMillis(long timeoutMs) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return timeoutMs;
+        }
+        long remaining = Math.max(deadline.remainingMillis(), 1);
+        return timeoutMs > 0 ? Math.min(timeoutMs, remaining) : remaining;
+    }
+
+    /**
+     * Count an expired request and create the exception to answer it with
+     *
+     * @param stage - where in handling the request it was found to have run out of time
+     * @return the exception to throw
+     */
+    public static DeadlineExceededException expired(String stage) {
+        LongAdder counter = EXPIRED.get(stage);
+        if (counter == null) {
+            counter = EXPIRED.computeIfAbsent(stage, key -> new LongAdder());
+        }
+        counter.increment();
+        return DeadlineExceededException.withoutStackTrace("Request deadline exceeded at " + stage);
+    }
+
+    /**
+     * @return the number of requests that have run out of time, by the stage they reached
+     */
+    public static Map<String, Long> expiredCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : EXPIRED.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    /**
+     * @return the nanoseconds left before the deadline, negative once it has passed
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * @return the whole milliseconds left before the deadline, negative once it has passed
+     */
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+}
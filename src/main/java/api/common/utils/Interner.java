@@ -0,0 +1,60 @@
+package api.common.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interner - bounded pool of canonical strings used to deduplicate values that repeat across rows, such as
+ * postcodes and address lines.
+ * <p/>
+ * Once the pool is full new values are returned as they are rather than added, so memory use stays bounded
+ * while the values already pooled continue to be shared.
+ */
+public class Interner {
+
+    private final ConcurrentHashMap<String, String> pool;
+
+    private final int maximumSize;
+
+    /**
+     * Pool holding up to 10,000 values
+     */
+    public Interner() {
+        this(10000);
+    }
+
+    /**
+     * @param maximumSize - the maximum number of distinct values to hold
+     */
+    public Interner(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.pool = new ConcurrentHashMap<>(Math.min(maximumSize, 1024));
+    }
+
+    /**
+     * Returns the pooled instance equal to a value, pooling the value itself when it is new and there is room
+     *
+     * @param value - the value to intern, may be null
+     * @return the canonical instance, or the value itself if the pool is full
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() >= maximumSize) {
+            return value;
+        }
+        pooled = pool.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * @return the number of values currently pooled
+     */
+    public int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,115 @@
+package api.common.utils;
+
+import api.common.exceptions.DeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight - coalesces concurrent calls for the same key so that only one of them does the work
+ * <p/>
+ * The first caller for a key runs the loader, every caller that arrives while it is running waits for and
+ * shares that one result, or that one exception. In flight calls are held in a ConcurrentHashMap so callers
+ * for different keys never contend on a common lock. A caller with a {@link Deadline} waits no longer than it
+ * allows. The loader runs under the deadline of the caller that runs it, so when that deadline passes the
+ * {@link DeadlineExceededException} is its caller's alone: the callers waiting on it try again, running the loader
+ * themselves or joining another caller's call, each within its own deadline.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    /** Completes the calls of a loader that ran out of its caller's time, so that those waiting try again */
+    private static final RuntimeException RETRY = new RuntimeException("Loader ran out of its caller's time", null,
+            false, false) {
+    };
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run the loader for a key, or join a call for the same key that is already running
+     *
+     * @param key    - the key to coalesce calls on
+     * @param loader - the work to do when no call for the key is in flight
+     * @return the result of the loader
+     */
+    public V execute(K key, Supplier<V> loader) {
+
+        while (true) {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+            if (existing == null) {
+                return run(key, call, loader);
+            }
+            try {
+                return await(existing);
+            } catch (RuntimeException e) {
+                if (e != RETRY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the loader and complete the call with its outcome. The call is removed before it is completed, so that
+     * a caller trying again does not find it still in flight.
+     */
+    private V run(K key, CompletableFuture<V> call, Supplier<V> loader) {
+        try {
+            V value = loader.get();
+            inFlight.remove(key, call);
+            call.complete(value);
+            return value;
+        } catch (DeadlineExceededException e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(RETRY);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of keys with a call currently in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * Wait for a call made by another thread, rethrowing its exception unwrapped so that callers see the
+     * same exception type the loader threw.
+     */
+    private V await(CompletableFuture<V> call) {
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null) {
+                return call.join();
+            }
+            return call.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw Deadline.expired("coalesce");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Deadline.expired("coalesce");
+        } catch (CompletionException | ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package api.common.utils;
+
+import api.common.exceptions.InternalServerErrorException;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * TaxYearCalculator - tax year lookups against a precomputed table of tax year boundaries.
+ * <p/>
+ * The table holds, for each year in range, the instant of 00:00 on 5th April in the time zone that was the default
+ * when it was built. Each instant is derived the same way {@link DateUtils#getTaxYear(Date)} always has, so daylight
+ * saving and leap years give identical results. A lookup is a check against the entry last found followed, if that
+ * misses, by a binary search. Instants outside the table, and all instants when the default locale does not use the
+ * Gregorian calendar, are calculated by {@link DateEngine} instead.
+ * <p/>
+ * The shared instance covers the years given by the JVM arguments tax_year_table_start and tax_year_table_end,
+ * 1900 to 2100 by default, and is rebuilt if the default time zone changes.
+ */
+public final class TaxYearCalculator {
+
+    /**
+     * the names of the JVM arguments that set the range of years in the shared table
+     */
+    private static final String TABLE_START_JVM_ARG = "tax_year_table_start";
+    private static final String TABLE_END_JVM_ARG = "tax_year_table_end";
+
+    private static final int DEFAULT_TABLE_START = 1900;
+    private static final int DEFAULT_TABLE_END = 2100;
+
+    private static volatile TaxYearCalculator shared;
+
+    private final String zoneId;
+
+    private final int firstYear;
+
+    /**
+     * the end of each tax year in the table, as epoch milliseconds, in ascending order
+     */
+    private final long[] boundaries;
+
+    /**
+     * the tax years as strings, so that callers wanting a string do not create one per call
+     */
+    private final String[] names;
+
+    /**
+     * Builds a table for the default time zone covering the tax years ending in firstYear + 1 to lastYear
+     *
+     * @param firstYear - the first calendar year in the table
+     * @param lastYear  - the last calendar year in the table
+     */
+    public TaxYearCalculator(int firstYear, int lastYear) {
+
+        if (lastYear <= firstYear) {
+            throw new IllegalArgumentException(
+                    String.format("Tax year table must span more than one year, %d to %d given", firstYear, lastYear));
+        }
+
+        this.zoneId = TimeZone.getDefault().getID();
+        this.firstYear = firstYear;
+        this.boundaries = new long[lastYear - firstYear + 1];
+        this.names = new String[boundaries.length];
+        for (int i = 0; i < boundaries.length; i++) {
+            try {
+                boundaries[i] = DateEngine.parse("05-04-" + (firstYear + i), "dd-MM-yyyy");
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+            names[i] = String.valueOf(firstYear + i);
+        }
+    }
+
+    /**
+     * @return the shared calculator for the default time zone
+     */
+    public static TaxYearCalculator getInstance() {
+        TaxYearCalculator calculator = shared;
+        if (calculator == null || !calculator.zoneId.equals(TimeZone.getDefault().getID())) {
+            calculator = new TaxYearCalculator(Integer.getInteger(TABLE_START_JVM_ARG, DEFAULT_TABLE_START),
+                    Integer.getInteger(TABLE_END_JVM_ARG, DEFAULT_TABLE_END));
+            shared = calculator;
+        }
+        return calculator;
+    }
+
+    /**
+     * @param epochMilli - an instant as milliseconds since the epoch
+     * @return the calendar year in which the tax year containing the instant ends
+     */
+    public int taxYear(long epochMilli) {
+        int index = indexOf(epochMilli, 1);
+        return index > 0 ? firstYear + index : DateEngine.taxYear(epochMilli);
+    }
+
+    /**
+     * As {@link #taxYear(long)}, returning the year as a string
+     */
+    public String taxYearName(long epochMilli) {
+        int index = indexOf(epochMilli, 1);
+        return index > 0 ? names[index] : String.valueOf(DateEngine.taxYear(epochMilli));
+    }
+
+    /**
+     * The tax years for many instants in one pass. Runs of instants in the same tax year, as in data sorted or
+     * grouped by date, are resolved without searching.
+     *
+     * @param epochMillis - instants as milliseconds since the epoch
+     * @return the tax year for each instant, in the same order
+     */
+    public int[] taxYears(long[] epochMillis) {
+        int[] taxYears = new int[epochMillis.length];
+        int index = 1;
+        for (int i = 0; i < epochMillis.length; i++) {
+            int found = indexOf(epochMillis[i], index);
+            if (found > 0) {
+                index = found;
+                taxYears[i] = firstYear + found;
+            } else {
+                taxYears[i] = DateEngine.taxYear(epochMillis[i]);
+            }
+        }
+        return taxYears;
+    }
+
+    /**
+     * As {@link #taxYears(long[])} for dates, none of which may be null
+     */
+    public int[] taxYears(Date[] dates) {
+        long[] epochMillis = new long[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            if (dates[i] == null) {
+                throw new InternalServerErrorException();
+            }
+            epochMillis[i] = dates[i].getTime();
+        }
+        return taxYears(epochMillis);
+    }
+
+    /**
+     * Find the table entry for the end of the tax year containing an instant, trying the given entry first.
+     *
+     * @return the index of the first boundary at or after the instant, or 0 if the instant is outside the table
+     */
+    private int indexOf(long epochMilli, int hint) {
+        if (!DateEngine.isFastPathLocale()) {
+            // Tax years follow the locale's calendar, which the table does not
+            return 0;
+        }
+        if (epochMilli > boundaries[hint - 1] && epochMilli <= boundaries[hint]) {
+            return hint;
+        }
+        if (epochMilli <= boundaries[0] || epochMilli > boundaries[boundaries.length - 1]) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(boundaries, epochMilli);
+        return index >= 0 ? index : -index - 1;
+    }
+}
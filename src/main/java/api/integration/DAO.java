@@ -1,8 +1,32 @@
 package api.integration;
 
+import api.business.model.Model;
 import api.business.model.Response;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
 public interface DAO {
     Response getInfo(String id);
-}
 
+    /**
+     * Get the information for several ids in a single round trip to the backend.
+     * Ids with no data are absent from the returned map.
+     */
+    Map<String, Response> getInfoBatch(Collection<String> ids);
+
+    /**
+     * Hand each row for an id to the consumer as it is read from the backend, without holding the full result.
+     * Throws ResourceNotFoundException when the id has no rows.
+     */
+    void streamInfo(String id, Consumer<Model> consumer);
+
+    /**
+     * Hand every id the backend has data for to the consumer. A DAO that cannot list its ids returns false
+     * without calling the consumer, meaning any id may have data.
+     */
+    default boolean forEachId(Consumer<String> consumer) {
+        return false;
+    }
+}
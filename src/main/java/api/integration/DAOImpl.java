@@ -4,19 +4,31 @@ import api.business.model.Model;
 import api.business.model.Response;
 import api.common.exceptions.ResourceNotFoundException;
 import api.common.exceptions.ServiceUnavailableException;
+import api.common.utils.Interner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Placeholder DAO returning fixed data. Used unless dao.type selects another implementation.
+ */
 @Component
+@ConditionalOnProperty(name = "dao.type", havingValue = "stub", matchIfMissing = true)
 public class DAOImpl implements DAO {
 
     private static Logger logger = LoggerFactory
             .getLogger(DAOImpl.class);
 
+    private final Interner interner = new Interner();
+
     /**
      * Get the current tax year information for an individual
      *
@@ -28,63 +40,118 @@ public class DAOImpl implements DAO {
 
         logger.debug("Call started for identifier {}", id);
 
-        Response response = new Response();
-
         long startTime = System.currentTimeMillis();
-        List<Model> list = new ArrayList<>();
-
-        ArrayList<Model> models = new ArrayList<>();
+        List<Model> models;
 
         try {
 
-            // Attempt to obtain data here
+            // Attempt to obtain data here, sizing the list to the number of rows returned
             // ...
             // ...
 
             // Temp create list of strings
-            list.add(new Model("name","al1","al2","al3","al4","al5","pc"));
+            models = new ArrayList<>(1);
+            models.add(toModel("name","al1","al2","al3","al4","al5","pc"));
 
         } catch (Exception e) {
             throw new ServiceUnavailableException("Unable to retrieve data", e);
         }
 
-        if (list.isEmpty()) {
-            throw new ResourceNotFoundException(
-                    String.format("No data available for this id: %s", id));
+        if (models.isEmpty()) {
+            throw ResourceNotFoundException.withoutStackTrace(
+                    "No data available for this id: " + id);
         }
 
-        for (Model m : list) {
+        logger.debug("Completed data SCAN in milliSeconds:{}", (System.currentTimeMillis() - startTime));
+
+        logger.debug("Data call ended for identifier {}", id);
+
+        // Close any connections
+        // ...
+        // ...
+
+        // The rows are immutable so the list is handed to the response without copying
+        return new Response(models);
+    }
+
+    /**
+     * Get the current tax year information for several individuals in one call
+     *
+     * @param ids - the ids for the information requested
+     * @return the information for each id that has data, keyed by id
+     */
+    @Override
+    public Map<String, Response> getInfoBatch(Collection<String> ids) {
 
+        logger.debug("Batch call started for {} identifiers", ids.size());
 
-            // Set the data items that are needed
+        long startTime = System.currentTimeMillis();
+        Map<String, Response> responses = new LinkedHashMap<>(ids.size() * 4 / 3 + 1);
+
+        try {
+
+            // Attempt to obtain data for all ids in one request here
             // ...
             // ...
 
-            logger.debug("Got row");
-
-            Model model = new Model();
-            model.setName(m.getName());
-            model.setAddress_line_1(m.getAddress_line_1());
-            model.setAddress_line_2(m.getAddress_line_2());
-            model.setAddress_line_3(m.getAddress_line_3());
-            model.setAddress_line_4(m.getAddress_line_4());
-            model.setAddress_line_5(m.getAddress_line_5());
-            model.setPostcode(m.getPostcode());
+            // Temp create list of strings
+            for (String id : ids) {
+                List<Model> models = new ArrayList<>(1);
+                models.add(toModel("name","al1","al2","al3","al4","al5","pc"));
+                responses.put(id, new Response(models));
+            }
 
-            models.add(model);
+        } catch (Exception e) {
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
         }
-        logger.info("Completed data SCAN in milliSeconds:{}", (System.currentTimeMillis() - startTime));
-
-        logger.debug("Data call ended for identifier {}", id);
 
-        response.setModels(models);
+        logger.debug("Completed batch data SCAN of {} ids in milliSeconds:{}", ids.size(), (System.currentTimeMillis() - startTime));
 
         // Close any connections
         // ...
         // ...
 
-        return response;
+        return responses;
     }
 
+    /**
+     * Stream the current tax year information for an individual, handing each row on as it is read
+     *
+     * @param id       - the id for the information requested
+     * @param consumer - receives each row in turn
+     */
+    @Override
+    public void streamInfo(String id, Consumer<Model> consumer) {
+
+        logger.debug("Stream started for identifier {}", id);
+
+        long startTime = System.currentTimeMillis();
+        int rows = 0;
+
+        // Attempt to obtain data here, passing each row on as it is read. Exceptions raised by the consumer,
+        // such as the client going away, are left to propagate as they are not backend failures
+        // ...
+        // ...
+
+        // Temp create list of strings
+        consumer.accept(toModel("name","al1","al2","al3","al4","al5","pc"));
+        rows++;
+
+        if (rows == 0) {
+            throw ResourceNotFoundException.withoutStackTrace(
+                    "No data available for this id: " + id);
+        }
 
-}
\ No newline at end of file
+        logger.debug("Completed data STREAM of {} rows in milliSeconds:{}", rows, (System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Build a row, sharing the address and postcode values that repeat between rows
+     */
+    private Model toModel(String name, String address_line_1, String address_line_2, String address_line_3,
+                          String address_line_4, String address_line_5, String postcode) {
+        return new Model(name, interner.intern(address_line_1), interner.intern(address_line_2),
+                interner.intern(address_line_3), interner.intern(address_line_4), interner.intern(address_line_5),
+                interner.intern(postcode));
+    }
+}
@@ -0,0 +1,397 @@
+package api.integration;
+
+import api.business.model.Model;
+import api.business.model.Response;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.utils.Deadline;
+import api.common.utils.Interner;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * DAO backed by a remote HTTP service.
+ * <p/>
+ * Connections are pooled and kept alive between requests, and upstream bodies are parsed as a stream of JSON
+ * tokens straight into {@link Model} rows. Selected with dao.type=http.
+ * <p/>
+ * The upstream service is expected to answer GET {base_url}/info?id= with a body of the same shape as
+ * {@link Response}, and POST {base_url}/info/batch with a body of the form {"results": {"id": Response}}.
+ * Each request's timeouts are bounded by the time left before the request's {@link Deadline}.
+ */
+@Component
+@ConditionalOnProperty(name = "dao.type", havingValue = "http")
+public class HttpDAOImpl implements DAO {
+
+    private static Logger logger = LoggerFactory
+            .getLogger(HttpDAOImpl.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final URI infoUri;
+
+    private final URI batchUri;
+
+    private final long keepAliveMs;
+
+    private final RequestConfig requestConfig;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final Interner interner = new Interner();
+
+    public HttpDAOImpl(@Value("${dao.http.base_url}") String baseUrl,
+                       @Value("${dao.http.max_total:200}") int maxTotal,
+                       @Value("${dao.http.max_per_route:50}") int maxPerRoute,
+                       @Value("${dao.http.connect_timeout_ms:1000}") int connectTimeoutMs,
+                       @Value("${dao.http.socket_timeout_ms:5000}") int socketTimeoutMs,
+                       @Value("${dao.http.connection_request_timeout_ms:500}") int connectionRequestTimeoutMs,
+                       @Value("${dao.http.keep_alive_ms:30000}") final long keepAliveMs) {
+
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.infoUri = URI.create(base + "/info");
+        this.batchUri = URI.create(base + "/info/batch");
+        this.keepAliveMs = keepAliveMs;
+
+        connectionManager = new PoolingHttpClientConnectionManager(keepAliveMs, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // Check a pooled connection is still open if it has been idle, rather than before every request
+        connectionManager.setValidateAfterInactivity(2000);
+
+        requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(socketTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    // Honour a Keep-Alive timeout sent by the server, otherwise use our own
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : keepAliveMs;
+                })
+                .build();
+
+        logger.debug("HTTP DAO created for {} with pool size {} ({} per route)", base, maxTotal, maxPerRoute);
+    }
+
+    /**
+     * Get the current tax year information for an individual
+     *
+     * @param id - the id for the information requested
+     * @return the current tax year information for an individual
+     */
+    @Override
+    public Response getInfo(String id) {
+
+        logger.debug("Call started for identifier {}", id);
+
+        long startTime = System.currentTimeMillis();
+        List<Model> models = new ArrayList<>();
+
+        if (fetch(id, models::add) == 0) {
+            throw ResourceNotFoundException.withoutStackTrace(
+                    "No data available for this id: " + id);
+        }
+
+        logger.debug("Completed data SCAN in milliSeconds:{}", (System.currentTimeMillis() - startTime));
+
+        logger.debug("Data call ended for identifier {}", id);
+
+        return new Response(models);
+    }
+
+    /**
+     * Stream the current tax year information for an individual, handing each row on as it is parsed
+     *
+     * @param id       - the id for the information requested
+     * @param consumer - receives each row in turn
+     */
+    @Override
+    public void streamInfo(String id, Consumer<Model> consumer) {
+
+        logger.debug("Stream started for identifier {}", id);
+
+        long startTime = System.currentTimeMillis();
+        int rows = fetch(id, consumer);
+        if (rows == 0) {
+            throw ResourceNotFoundException.withoutStackTrace(
+                    "No data available for this id: " + id);
+        }
+
+        logger.debug("Completed data STREAM of {} rows in milliSeconds:{}", rows, (System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Get the current tax year information for several individuals in one upstream request
+     *
+     * @param ids - the ids for the information requested
+     * @return the information for each id that has data, keyed by id
+     */
+    @Override
+    public Map<String, Response> getInfoBatch(Collection<String> ids) {
+
+        logger.debug("Batch call started for {} identifiers", ids.size());
+
+        long startTime = System.currentTimeMillis();
+        HttpPost post = new HttpPost(batchUri);
+        post.setConfig(withDeadline());
+        Map<String, Response> responses = new LinkedHashMap<>();
+
+        try {
+            post.setEntity(new ByteArrayEntity(writeIds(ids), ContentType.APPLICATION_JSON));
+
+            try (CloseableHttpResponse httpResponse = httpClient.execute(post)) {
+                HttpEntity entity = httpResponse.getEntity();
+                try {
+                    int status = httpResponse.getStatusLine().getStatusCode();
+                    if (status != HttpStatus.SC_OK || entity == null) {
+                        throw new ServiceUnavailableException(
+                                String.format("Unable to retrieve data, upstream status %d", status));
+                    }
+                    try (InputStream content = entity.getContent();
+                         JsonParser parser = JSON_FACTORY.createParser(content)) {
+                        readBatch(parser, responses);
+                    }
+                } finally {
+                    EntityUtils.consumeQuietly(entity);
+                }
+            }
+        } catch (IOException e) {
+            Deadline.check("dao");
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
+        }
+
+        logger.debug("Completed batch data SCAN of {} ids in milliSeconds:{}", ids.size(), (System.currentTimeMillis() - startTime));
+
+        return responses;
+    }
+
+    /**
+     * Request the rows for an id and hand each one to the consumer as it is parsed.
+     *
+     * @return the number of rows read
+     */
+    private int fetch(String id, Consumer<Model> consumer) {
+
+        HttpGet get;
+        try {
+            get = new HttpGet(new URIBuilder(infoUri).addParameter("id", id).build());
+        } catch (URISyntaxException e) {
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
+        }
+        get.setConfig(withDeadline());
+
+        try (CloseableHttpResponse httpResponse = httpClient.execute(get)) {
+            HttpEntity entity = httpResponse.getEntity();
+            int status = httpResponse.getStatusLine().getStatusCode();
+            if (status != HttpStatus.SC_OK || entity == null) {
+                // Read the error body so the connection can go back to the pool
+                EntityUtils.consumeQuietly(entity);
+                if (status == HttpStatus.SC_NOT_FOUND) {
+                    throw ResourceNotFoundException.withoutStackTrace(
+                            "No data available for this id: " + id);
+                }
+                throw new ServiceUnavailableException(
+                        String.format("Unable to retrieve data, upstream status %d", status));
+            }
+            // Closing the content reads any remainder so the connection can go back to the pool
+            try (InputStream content = entity.getContent();
+                 JsonParser parser = JSON_FACTORY.createParser(content)) {
+                try {
+                    return readModels(parser, parser.nextToken(), consumer);
+                } catch (RuntimeException e) {
+                    // The consumer gave up part way, drop the connection rather than read the rest of the body
+                    get.abort();
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            Deadline.check("dao");
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
+        }
+    }
+
+    /**
+     * The request timeouts, each bounded by the time left for the current request, refusing to make the request
+     * if there is none left
+     */
+    private RequestConfig withDeadline() {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return requestConfig;
+        }
+        Deadline.check("dao");
+        return RequestConfig.copy(requestConfig)
+                .setConnectTimeout((int) Deadline.boundMillis(requestConfig.getConnectTimeout()))
+                .setSocketTimeout((int) Deadline.boundMillis(requestConfig.getSocketTimeout()))
+                .setConnectionRequestTimeout((int) Deadline.boundMillis(requestConfig.getConnectionRequestTimeout()))
+                .build();
+    }
+
+    /**
+     * Close connections that the server has expired or that have been idle longer than the keep alive period,
+     * so that the pool does not hand out connections the server is about to drop.
+     */
+    @Scheduled(fixedDelayString = "${dao.http.idle_check_ms:30000}")
+    public void closeIdleConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(keepAliveMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Parse a batch body of the form {"results": {"id": Response}}, ignoring any other fields.
+     */
+    private void readBatch(JsonParser parser, Map<String, Response> responses) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("results".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String id = parser.getCurrentName();
+                    Response response = readResponse(parser, parser.nextToken());
+                    if (!response.getModels().isEmpty()) {
+                        responses.put(id, response);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Parse a body of the same shape as {@link Response}, reading each row as it arrives.
+     */
+    private Response readResponse(JsonParser parser, JsonToken token) throws IOException {
+        List<Model> models = new ArrayList<>();
+        readModels(parser, token, models::add);
+        return new Response(models);
+    }
+
+    /**
+     * Parse a body of the same shape as {@link Response}, handing each row to the consumer as it is read.
+     *
+     * @return the number of rows read
+     */
+    private int readModels(JsonParser parser, JsonToken token, Consumer<Model> consumer) throws IOException {
+        expect(token, JsonToken.START_OBJECT);
+        int rows = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+            if ("models".equals(field) && token == JsonToken.START_ARRAY) {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    consumer.accept(readModel(parser, token));
+                    rows++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rows;
+    }
+
+    private Model readModel(JsonParser parser, JsonToken token) throws IOException {
+        expect(token, JsonToken.START_OBJECT);
+        Model.Builder model = Model.builder();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+            String value = token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+            switch (field) {
+                case "name":
+                    model.name(value);
+                    break;
+                case "address_line_1":
+                    model.address_line_1(interner.intern(value));
+                    break;
+                case "address_line_2":
+                    model.address_line_2(interner.intern(value));
+                    break;
+                case "address_line_3":
+                    model.address_line_3(interner.intern(value));
+                    break;
+                case "address_line_4":
+                    model.address_line_4(interner.intern(value));
+                    break;
+                case "address_line_5":
+                    model.address_line_5(interner.intern(value));
+                    break;
+                case "postcode":
+                    model.postcode(interner.intern(value));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return model.build();
+    }
+
+    private byte[] writeIds(Collection<String> ids) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + ids.size() * 16);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("ids");
+            for (String id : ids) {
+                generator.writeString(id);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException(String.format("Unexpected upstream content, expected %s but found %s", expected, actual));
+        }
+    }
+}
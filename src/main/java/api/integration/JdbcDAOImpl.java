@@ -0,0 +1,255 @@
+package api.integration;
+
+import api.business.model.Model;
+import api.business.model.Response;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.utils.Deadline;
+import api.common.utils.Interner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * DAO backed by a relational database, selected with dao.type=jdbc.
+ * <p/>
+ * Rows are mapped to {@link Model} as the result set is read, with no intermediate list. Batch lookups use an
+ * IN list padded to a power of two so that only a handful of distinct statements reach the statement cache.
+ * Each query's timeout is bounded by the time left before the request's {@link Deadline}.
+ */
+@Component
+@ConditionalOnProperty(name = "dao.type", havingValue = "jdbc")
+public class JdbcDAOImpl implements DAO {
+
+    private static Logger logger = LoggerFactory
+            .getLogger(JdbcDAOImpl.class);
+
+    private static final String COLUMNS = "name, address_line_1, address_line_2, address_line_3, address_line_4, address_line_5, postcode";
+
+    private static final String SELECT_INFO = "SELECT " + COLUMNS + " FROM info WHERE id = ?";
+
+    private static final String SELECT_INFO_BATCH = "SELECT id, " + COLUMNS + " FROM info WHERE id IN (";
+
+    private static final String SELECT_IDS = "SELECT DISTINCT id FROM info";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Interner interner = new Interner();
+
+    @Autowired
+    public JdbcDAOImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Get the current tax year information for an individual
+     *
+     * @param id - the id for the information requested
+     * @return the current tax year information for an individual
+     */
+    @Override
+    public Response getInfo(String id) {
+
+        logger.debug("Call started for identifier {}", id);
+
+        long startTime = System.currentTimeMillis();
+        final List<Model> models = new ArrayList<>();
+
+        try {
+            jdbcTemplate.query(SELECT_INFO, withDeadline(id), rs -> {
+                models.add(mapRow(rs, 1));
+            });
+        } catch (DataAccessException e) {
+            Deadline.check("dao");
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
+        }
+
+        if (models.isEmpty()) {
+            throw ResourceNotFoundException.withoutStackTrace(
+                    "No data available for this id: " + id);
+        }
+
+        logger.debug("Completed data SCAN in milliSeconds:{}", (System.currentTimeMillis() - startTime));
+
+        logger.debug("Data call ended for identifier {}", id);
+
+        return new Response(models);
+    }
+
+    /**
+     * Get the current tax year information for several individuals in one query
+     *
+     * @param ids - the ids for the information requested
+     * @return the information for each id that has data, keyed by id
+     */
+    @Override
+    public Map<String, Response> getInfoBatch(Collection<String> ids) {
+
+        logger.debug("Batch call started for {} identifiers", ids.size());
+
+        long startTime = System.currentTimeMillis();
+        Map<String, Response> responses = new HashMap<>(ids.size() * 4 / 3 + 1);
+        if (ids.isEmpty()) {
+            return responses;
+        }
+
+        Object[] args = padIds(ids);
+        StringBuilder sql = new StringBuilder(SELECT_INFO_BATCH.length() + args.length * 2);
+        sql.append(SELECT_INFO_BATCH);
+        for (int i = 0; i < args.length; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')');
+
+        final Map<String, List<Model>> rows = new HashMap<>(ids.size() * 4 / 3 + 1);
+        try {
+            jdbcTemplate.query(sql.toString(), withDeadline(args), rs -> {
+                String id = rs.getString(1);
+                List<Model> models = rows.get(id);
+                if (models == null) {
+                    models = new ArrayList<>();
+                    rows.put(id, models);
+                }
+                models.add(mapRow(rs, 2));
+            });
+        } catch (DataAccessException e) {
+            Deadline.check("dao");
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
+        }
+
+        for (Map.Entry<String, List<Model>> entry : rows.entrySet()) {
+            responses.put(entry.getKey(), new Response(entry.getValue()));
+        }
+
+        logger.debug("Completed batch data SCAN of {} ids in milliSeconds:{}", ids.size(), (System.currentTimeMillis() - startTime));
+
+        return responses;
+    }
+
+    /**
+     * Stream the current tax year information for an individual, handing each row on as the result set is read.
+     * Only the current row is held, so memory use does not depend on the number of rows.
+     *
+     * @param id       - the id for the information requested
+     * @param consumer - receives each row in turn
+     */
+    @Override
+    public void streamInfo(String id, Consumer<Model> consumer) {
+
+        logger.debug("Stream started for identifier {}", id);
+
+        long startTime = System.currentTimeMillis();
+        final int[] rows = new int[1];
+
+        try {
+            jdbcTemplate.query(SELECT_INFO, withDeadline(id), rs -> {
+                consumer.accept(mapRow(rs, 1));
+                rows[0]++;
+            });
+        } catch (DataAccessException e) {
+            Deadline.check("dao");
+            throw new ServiceUnavailableException("Unable to retrieve data", e);
+        }
+
+        if (rows[0] == 0) {
+            throw ResourceNotFoundException.withoutStackTrace(
+                    "No data available for this id: " + id);
+        }
+
+        logger.debug("Completed data STREAM of {} rows in milliSeconds:{}", rows[0], (System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * List every id with data, handing each on as the result set is read
+     *
+     * @param consumer - receives each id in turn
+     * @return true, as the ids can always be listed
+     */
+    @Override
+    public boolean forEachId(Consumer<String> consumer) {
+
+        long startTime = System.currentTimeMillis();
+        final int[] ids = new int[1];
+
+        try {
+            jdbcTemplate.query(SELECT_IDS, rs -> {
+                consumer.accept(rs.getString(1));
+                ids[0]++;
+            });
+        } catch (DataAccessException e) {
+            throw new ServiceUnavailableException("Unable to list ids", e);
+        }
+
+        logger.debug("Completed id SCAN of {} ids in milliSeconds:{}", ids[0], (System.currentTimeMillis() - startTime));
+        return true;
+    }
+
+    /**
+     * Bind the arguments and bound the query timeout by the time left for the current request, refusing to run the
+     * query if there is none left. The timeout is in whole seconds, so is rounded up.
+     */
+    private PreparedStatementSetter withDeadline(Object... args) {
+        ArgumentPreparedStatementSetter arguments = new ArgumentPreparedStatementSetter(args);
+        return ps -> {
+            arguments.setValues(ps);
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                long remainingMs = deadline.remainingMillis();
+                if (remainingMs <= 0) {
+                    throw Deadline.expired("dao");
+                }
+                int seconds = (int) Math.min((remainingMs + 999) / 1000, Integer.MAX_VALUE);
+                if (jdbcTemplate.getQueryTimeout() <= 0 || seconds < jdbcTemplate.getQueryTimeout()) {
+                    ps.setQueryTimeout(seconds);
+                }
+            }
+        };
+    }
+
+    /**
+     * Map the current row, sharing the address and postcode values that repeat between rows
+     */
+    private Model mapRow(ResultSet rs, int first) throws SQLException {
+        return new Model(rs.getString(first), interner.intern(rs.getString(first + 1)),
+                interner.intern(rs.getString(first + 2)), interner.intern(rs.getString(first + 3)),
+                interner.intern(rs.getString(first + 4)), interner.intern(rs.getString(first + 5)),
+                interner.intern(rs.getString(first + 6)));
+    }
+
+    /**
+     * Round the number of bind parameters up to a power of two, repeating the last id, so that batches of
+     * different sizes share prepared statements.
+     */
+    private static Object[] padIds(Collection<String> ids) {
+        int size = Integer.highestOneBit(ids.size());
+        if (size < ids.size()) {
+            size <<= 1;
+        }
+        Object[] args = new Object[size];
+        Iterator<String> iterator = ids.iterator();
+        String last = null;
+        for (int i = 0; i < size; i++) {
+            if (iterator.hasNext()) {
+                last = iterator.next();
+            }
+            args[i] = last;
+        }
+        return args;
+    }
+}
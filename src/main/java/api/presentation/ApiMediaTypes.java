@@ -0,0 +1,33 @@
+package api.presentation;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types offered by the API beyond those defined in {@link MediaType}.
+ */
+public final class ApiMediaTypes {
+
+    /**
+     * Newline delimited JSON, one value per line, used to stream rows as they are read
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    /**
+     * Jackson Smile, a binary encoding of the JSON data model
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Concise Binary Object Representation, RFC 7049
+     */
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf(APPLICATION_CBOR_VALUE);
+
+    private ApiMediaTypes() {
+    }
+}
@@ -0,0 +1,17 @@
+package api.presentation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.util.Assert;
+
+/**
+ * Reads and writes CBOR with Jackson. Spring provides no CBOR converter until Spring 5.
+ */
+public class CborHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public CborHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, ApiMediaTypes.APPLICATION_CBOR);
+        Assert.isInstanceOf(CBORFactory.class, objectMapper.getFactory(), "CBORFactory required");
+    }
+}
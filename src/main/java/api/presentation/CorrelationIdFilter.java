@@ -0,0 +1,48 @@
+package api.presentation;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Puts the request's CorrelationId header in the logging MDC for the length of the request, so that every log line
+ * written while handling it carries the id without it being passed into each call. Runs ahead of the security
+ * filters so that their logging is included, and again for the dispatch that completes an asynchronous request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "CorrelationId";
+
+    public static final String MDC_KEY = "correlationId";
+
+    private static final String DEFAULT_CORRELATION_ID = "undefined";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String correlationId = request.getHeader(HEADER);
+        MDC.put(MDC_KEY, StringUtils.hasText(correlationId) ? correlationId : DEFAULT_CORRELATION_ID);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package api.presentation;
+
+import api.common.utils.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets the {@link Deadline} of each request from its RequestTimeout header, the milliseconds the caller will wait
+ * for an answer, for the length of the request. Requests without the header, or with one that is not a positive
+ * number, get the default timeout, and no request gets longer than the maximum. The deadline runs from the time
+ * the request reaches this filter and is kept for the dispatch that completes an asynchronous request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineFilter.class);
+
+    public static final String HEADER = "RequestTimeout";
+
+    private static final String ATTRIBUTE = DeadlineFilter.class.getName() + ".DEADLINE";
+
+    @Value("${deadline.default_timeout_ms:10000}")
+    long defaultTimeoutMs = 10000;
+
+    @Value("${deadline.max_timeout_ms:60000}")
+    long maxTimeoutMs = 60000;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Deadline deadline = (Deadline) request.getAttribute(ATTRIBUTE);
+        if (deadline == null) {
+            deadline = Deadline.after(timeoutMs(request.getHeader(HEADER)), TimeUnit.MILLISECONDS);
+            request.setAttribute(ATTRIBUTE, deadline);
+        }
+        Deadline.set(deadline);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.set(null);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private long timeoutMs(String header) {
+        if (StringUtils.hasText(header)) {
+            try {
+                long timeoutMs = Long.parseLong(header.trim());
+                if (timeoutMs > 0) {
+                    return Math.min(timeoutMs, maxTimeoutMs);
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the default
+            }
+            logger.debug("Ignoring invalid {} header: {}", HEADER, header);
+        }
+        return defaultTimeoutMs;
+    }
+}
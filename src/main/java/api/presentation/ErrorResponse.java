@@ -0,0 +1,134 @@
+package api.presentation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The body of an error response, in the same form as Spring's default error attributes with the addition of the
+ * correlationId.
+ * <p/>
+ * The body writes itself rather than going through bean introspection. The field names, the reason phrase for
+ * each status and the name of each exception class are held already encoded, so only the correlationId, message
+ * and path are encoded per response.
+ */
+public class ErrorResponse extends JsonSerializable.Base {
+
+    private static final SerializedString CORRELATION_ID = new SerializedString("correlationId");
+
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+    private static final SerializedString STATUS = new SerializedString("status");
+
+    private static final SerializedString ERROR = new SerializedString("error");
+
+    private static final SerializedString EXCEPTION = new SerializedString("exception");
+
+    private static final SerializedString MESSAGE = new SerializedString("message");
+
+    private static final SerializedString PATH = new SerializedString("path");
+
+    private static final Map<HttpStatus, SerializedString> REASON_PHRASES = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            REASON_PHRASES.put(status, new SerializedString(status.getReasonPhrase()));
+        }
+    }
+
+    private static final ClassValue<SerializedString> EXCEPTION_NAMES = new ClassValue<SerializedString>() {
+        @Override
+        protected SerializedString computeValue(Class<?> type) {
+            return new SerializedString(type.getName());
+        }
+    };
+
+    private final String correlationId;
+
+    private final long timestamp;
+
+    private final HttpStatus status;
+
+    private final Class<?> exception;
+
+    private final String message;
+
+    private final String path;
+
+    /**
+     * @param correlationId - the CorrelationId of the request
+     * @param timestamp     - the time of the error in milliseconds since the epoch
+     * @param status        - the status of the response
+     * @param exception     - the class of the exception that caused the error
+     * @param message       - the message of the exception, may be null
+     * @param path          - the path of the request
+     */
+    public ErrorResponse(String correlationId, long timestamp, HttpStatus status, Class<?> exception, String message, String path) {
+        this.correlationId = correlationId;
+        this.timestamp = timestamp;
+        this.status = status;
+        this.exception = exception;
+        this.message = message;
+        this.path = path;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getStatus() {
+        return status.value();
+    }
+
+    public String getError() {
+        return status.getReasonPhrase();
+    }
+
+    public String getException() {
+        return exception.getName();
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(CORRELATION_ID);
+        gen.writeString(correlationId);
+        gen.writeFieldName(TIMESTAMP);
+        gen.writeNumber(timestamp);
+        gen.writeFieldName(STATUS);
+        gen.writeNumber(status.value());
+        gen.writeFieldName(ERROR);
+        gen.writeString(REASON_PHRASES.get(status));
+        gen.writeFieldName(EXCEPTION);
+        gen.writeString(EXCEPTION_NAMES.get(exception));
+        gen.writeFieldName(MESSAGE);
+        gen.writeString(message);
+        gen.writeFieldName(PATH);
+        gen.writeString(path);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,37 @@
+package api.presentation;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The HTTP status for each exception class given by its {@link ResponseStatus} annotation, looked up once per class
+ * rather than by reflection on every error.
+ */
+public final class ExceptionStatuses {
+
+    /**
+     * the status for each class, or NO_STATUS where the class is not annotated
+     */
+    private static final ClassValue<Object> STATUSES = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            ResponseStatus responseStatus = AnnotationUtils.findAnnotation(type, ResponseStatus.class);
+            return responseStatus != null ? responseStatus.value() : NO_STATUS;
+        }
+    };
+
+    private static final Object NO_STATUS = new Object();
+
+    private ExceptionStatuses() {
+    }
+
+    /**
+     * @param type - an exception class
+     * @return the status the class is annotated with, or null if it has none
+     */
+    public static HttpStatus of(Class<? extends Throwable> type) {
+        Object status = STATUSES.get(type);
+        return status != NO_STATUS ? (HttpStatus) status : null;
+    }
+}
@@ -1,18 +1,22 @@
 package api.presentation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
-import java.util.LinkedHashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.autoconfigure.web.ErrorAttributes;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -27,16 +31,29 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import api.common.exceptions.ServiceUnavailableException;
 
+/**
+ * Requests refused to shed load, by the concurrency limit, the DAO bulkhead and circuit breaker, or for running out
+ * of time, are expected in volume under overload. They are logged for debugging only and counted by type, published
+ * as counter.errors.refused.Type. Other server errors, timeouts included, are logged as errors.
+ */
 @ControllerAdvice
 @Component
-public class LoggingResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
+public class LoggingResponseEntityExceptionHandler extends ResponseEntityExceptionHandler implements PublicMetrics {
 	
 	private static final Logger logger = LoggerFactory.getLogger(LoggingResponseEntityExceptionHandler.class);
 	
 	private String defaultCorrelationID="undefined";
 
-	private final List<MediaType> supportedMediaTypes = Arrays.asList(MediaType.APPLICATION_JSON);
+	private static final int MAX_CACHED_ACCEPT_HEADERS = 256;
+
+	private final ConcurrentHashMap<String, Optional<MediaType>> contentTypes = new ConcurrentHashMap<>();
+
+	private final Map<String, LongAdder> refused = new ConcurrentHashMap<>();
+
+	private final List<MediaType> supportedMediaTypes = Arrays.asList(MediaType.APPLICATION_JSON, ApiMediaTypes.APPLICATION_NDJSON,
+			ApiMediaTypes.APPLICATION_SMILE, ApiMediaTypes.APPLICATION_CBOR);
 
 	@Autowired
 	private ErrorAttributes errorAttributes;
@@ -57,19 +74,20 @@ public class LoggingResponseEntityExceptionHandler extends ResponseEntityExcepti
 		String correlationId = StringUtils.hasText(request.getHeader("CorrelationId")) ? request.getHeader("CorrelationId") : defaultCorrelationID;
 
 		// Handle any REST @ResponseStatus annotated exceptions
-		ResponseStatus responseStatus = AnnotationUtils.findAnnotation(ex.getClass(), ResponseStatus.class);
-		if (responseStatus != null) {
+		HttpStatus status = ExceptionStatuses.of(ex.getClass());
+		if (status != null) {
 			HttpHeaders headers = setContentType(new HttpHeaders(), request);
-			logger.debug("CorrelationId: {} Generating REST response for exception: [{}]", correlationId, ex.getClass().getSimpleName());
+			logger.debug("Generating REST response for exception: [{}]", ex.getClass().getSimpleName());
 			headers.add("CorrelationId", correlationId);
-			Object body = getErrorResponseBody(responseStatus.value(), ex, servletRequest, correlationId);
-			if (responseStatus.value().is5xxServerError()) {
-				logger.error("CorrelationId: {} Unexpected exception: ", correlationId, ex);
+			Object body = getErrorResponseBody(status, ex, servletRequest, correlationId);
+			if (status.is5xxServerError()) {
+				logServerError(ex);
 			}
-			if (responseStatus.value().is4xxClientError()) {
-				logger.warn("CorrelationId: {} Client exception: {}", correlationId, ex.getMessage());
+			// Client errors are expected in volume and counted in the metrics, so are only logged for debugging
+			if (status.is4xxClientError()) {
+				logger.debug("Client exception: {}", ex.getMessage());
 			}
-			return new ResponseEntity<Object>(body, headers, responseStatus.value());
+			return new ResponseEntity<Object>(body, headers, status);
 		} else {
 			return super.handleException(ex, request);
 		}
@@ -83,10 +101,11 @@ public class LoggingResponseEntityExceptionHandler extends ResponseEntityExcepti
 
 		String correlationId = StringUtils.hasText(request.getHeader("CorrelationId")) ? request.getHeader("CorrelationId") : defaultCorrelationID;
 		if (status.is5xxServerError()) {
-			logger.error("CorrelationId: {} Unexpected exception: ", correlationId, ex);
+			logServerError(ex);
 		}
+		// As in handle(), client errors are only logged for debugging
 		if (status.is4xxClientError()) {
-			logger.warn("CorrelationId: {} Client exception: {}", correlationId, ex.getMessage());
+			logger.debug("Client exception: {}", ex.getMessage());
 		}
 		
 		setContentType(headers, request);
@@ -96,6 +115,25 @@ public class LoggingResponseEntityExceptionHandler extends ResponseEntityExcepti
 		return new ResponseEntity<Object>(body, headers, status);
 	}
 	
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		refused.forEach((type, count) -> metrics.add(new Metric<Long>("counter.errors.refused." + type, count.sum())));
+		return metrics;
+	}
+
+	/**
+	 * Log a server error, or count it if the request was refused to shed load
+	 */
+	private void logServerError(Exception ex) {
+		if (ex instanceof ServiceUnavailableException && ((ServiceUnavailableException) ex).isRefused()) {
+			refused.computeIfAbsent(ex.getClass().getSimpleName(), type -> new LongAdder()).increment();
+			logger.debug("Request refused: {}", ex.getMessage());
+		} else {
+			logger.error("Unexpected exception: ", ex);
+		}
+	}
+
 	/**
 	 * Constructs a response body similar to that produced by Spring's default error controller.
 	 * Provides some consistency between any error view returned by Spring and those returned here ourselves.
@@ -104,16 +142,9 @@ public class LoggingResponseEntityExceptionHandler extends ResponseEntityExcepti
 	 * @see org.springframework.boot.autoconfigure.web.BasicErrorController
 	 */
 	private Object getErrorResponseBody(HttpStatus status, Exception ex, HttpServletRequest request, String correlationId) {
-		Map<String, Object> errorAttributes = new LinkedHashMap<String, Object>();
-		errorAttributes.put("correlationId", correlationId);
-		errorAttributes.put("timestamp", new Date());
-		errorAttributes.put("status", status.value());
-		errorAttributes.put("error", status.getReasonPhrase());
 		ex = unwrapException(ex, true);
-		errorAttributes.put("exception", ex.getClass().getName());
-		errorAttributes.put("message", ex.getMessage());
-		errorAttributes.put("path", request.getContextPath() + request.getServletPath());
-		return errorAttributes;
+		return new ErrorResponse(correlationId, System.currentTimeMillis(), status, ex.getClass(), ex.getMessage(),
+				request.getContextPath() + request.getServletPath());
 	}
 	
 	/** 
@@ -130,20 +161,42 @@ public class LoggingResponseEntityExceptionHandler extends ResponseEntityExcepti
 	}
 	
 	/**
-	 * Set content type on response based on accept header in request.
+	 * Set content type on response based on accept header in request. Clients send few distinct Accept headers, so
+	 * the outcome for each is kept, up to a limit, rather than parsing the header on every error.
 	 */
 	private HttpHeaders setContentType(HttpHeaders headers, WebRequest request) {
 		String accept = request.getHeader("Accept");
+		if (accept == null) {
+			return headers;
+		}
+		Optional<MediaType> contentType = contentTypes.get(accept);
+		if (contentType == null) {
+			contentType = Optional.ofNullable(negotiateContentType(accept));
+			if (contentTypes.size() < MAX_CACHED_ACCEPT_HEADERS) {
+				contentTypes.put(accept, contentType);
+			}
+		}
+		if (contentType.isPresent()) {
+			headers.setContentType(contentType.get());
+		}
+		return headers;
+	}
+
+	/**
+	 * @return the last of the accepted media types that is supported, or null if there is none
+	 */
+	private MediaType negotiateContentType(String accept) {
+		MediaType contentType = null;
 		try {
 			List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
 			for (MediaType mt : mediaTypes) {
 				if (supportedMediaTypes.contains(mt)) {
-					headers.setContentType(mt);
-				}						
+					contentType = mt;
+				}
 			}
 		} catch (Exception e) {
 			// Well, we tried
 		}
-		return headers;
+		return contentType;
 	}
 }
\ No newline at end of file
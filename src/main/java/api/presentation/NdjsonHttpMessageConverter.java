@@ -0,0 +1,40 @@
+package api.presentation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Writes a single value as one line of newline delimited JSON. Rows are streamed by the controller itself, this
+ * converter lets error responses to a streaming request be written in the requested media type.
+ */
+public class NdjsonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public NdjsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT), ApiMediaTypes.APPLICATION_NDJSON);
+    }
+
+    /**
+     * Write only, so that clients built from the application's converters, such as a RestTemplate, do not
+     * advertise the streaming media type in their Accept header
+     */
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeSuffix(JsonGenerator generator, Object object) throws IOException {
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,217 @@
+package api.presentation;
+
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.metrics.ApiMetrics;
+import api.common.metrics.LatencyTimer;
+import api.common.resilience.Bulkhead;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Divides the request threads between lanes, so that a flood of requests of one kind cannot take the threads
+ * needed by another. API requests from callers with the admin role go in the admin lane, other API requests in the
+ * user lane, and everything else, the actuator endpoints among them, in the actuator lane. Each lane allows a number
+ * of requests in progress. A lane set to refuse requests once full also lets a number wait for one of them to finish,
+ * for up to a maximum wait, and refuses the rest with SERVICE_UNAVAILABLE, a Retry-After header and the usual error
+ * body in JSON. A lane set not to refuse lets requests that find it full through over the limit at once, as making
+ * them wait first would only delay them.
+ * <p/>
+ * Runs once the caller is authenticated. A request holds its place until it releases its thread, so an asynchronous
+ * request gives its place back once it is handed over to the DAO executor. The most threads a lane can hold is its
+ * limit plus the number allowed to wait, which should leave enough of the connector's threads for the other lanes.
+ * <p/>
+ * Published on the actuator metrics endpoint, for each lane, as gauge.lane.name.in_use, queued and utilisation (the
+ * fraction of the limit in use), counter.lane.name.rejected and overflow (requests let through over the limit), and
+ * the time requests waited for a place as the timer api.lane.name.queue_wait.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class PriorityLaneFilter extends OncePerRequestFilter implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityLaneFilter.class);
+
+    private static final String API_PATH = "/api/";
+
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    private final boolean enabled;
+
+    private final Lane user;
+
+    private final Lane admin;
+
+    private final Lane actuator;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public PriorityLaneFilter(ApiMetrics apiMetrics, ObjectMapper objectMapper,
+                              @Value("${lanes.enabled:true}") boolean enabled,
+                              @Value("${lanes.user.max_concurrent:100}") int userMaxConcurrent,
+                              @Value("${lanes.user.max_queued:50}") int userMaxQueued,
+                              @Value("${lanes.user.max_wait_ms:500}") long userMaxWaitMs,
+                              @Value("${lanes.user.reject_when_full:true}") boolean userRejectWhenFull,
+                              @Value("${lanes.admin.max_concurrent:20}") int adminMaxConcurrent,
+                              @Value("${lanes.admin.max_queued:20}") int adminMaxQueued,
+                              @Value("${lanes.admin.max_wait_ms:1000}") long adminMaxWaitMs,
+                              @Value("${lanes.admin.reject_when_full:false}") boolean adminRejectWhenFull,
+                              @Value("${lanes.actuator.max_concurrent:10}") int actuatorMaxConcurrent,
+                              @Value("${lanes.actuator.max_queued:10}") int actuatorMaxQueued,
+                              @Value("${lanes.actuator.max_wait_ms:1000}") long actuatorMaxWaitMs,
+                              @Value("${lanes.actuator.reject_when_full:false}") boolean actuatorRejectWhenFull) {
+        this(objectMapper, enabled,
+                new Lane("user", bulkhead(userMaxConcurrent, userMaxWaitMs, userMaxQueued, userRejectWhenFull),
+                        userRejectWhenFull, apiMetrics),
+                new Lane("admin", bulkhead(adminMaxConcurrent, adminMaxWaitMs, adminMaxQueued, adminRejectWhenFull),
+                        adminRejectWhenFull, apiMetrics),
+                new Lane("actuator", bulkhead(actuatorMaxConcurrent, actuatorMaxWaitMs, actuatorMaxQueued,
+                        actuatorRejectWhenFull), actuatorRejectWhenFull, apiMetrics));
+
+        logger.debug("Lanes {} with user {}+{}, admin {}+{} and actuator {}+{} requests in progress+waiting",
+                enabled ? "enabled" : "disabled", userMaxConcurrent, userMaxQueued, adminMaxConcurrent, adminMaxQueued,
+                actuatorMaxConcurrent, actuatorMaxQueued);
+    }
+
+    PriorityLaneFilter(ObjectMapper objectMapper, boolean enabled, Lane user, Lane admin, Lane actuator) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.user = user;
+        this.admin = admin;
+        this.actuator = actuator;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Lane lane = laneFor(request);
+        long start = lane.queueWait.start();
+        if (lane.bulkhead.tryAcquire()) {
+            lane.queueWait.stop(start);
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                lane.bulkhead.release();
+            }
+        } else if (!lane.rejectWhenFull) {
+            lane.queueWait.stop(start);
+            filterChain.doFilter(request, response);
+        } else {
+            ServiceUnavailableException refused = ServiceUnavailableException.refused(
+                    "Too many " + lane.name + " requests in progress");
+            lane.queueWait.stop(start, refused);
+            logger.debug("Request refused: {}", refused.getMessage());
+            refuse(request, response, refused);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (Lane lane : new Lane[]{user, admin, actuator}) {
+            String prefix = "lane." + lane.name + ".";
+            Bulkhead bulkhead = lane.bulkhead;
+            metrics.add(new Metric<Integer>("gauge." + prefix + "in_use", bulkhead.getInUse()));
+            metrics.add(new Metric<Integer>("gauge." + prefix + "queued", bulkhead.getQueued()));
+            metrics.add(new Metric<Double>("gauge." + prefix + "utilisation",
+                    (double) bulkhead.getInUse() / bulkhead.getMaxConcurrent()));
+            // The bulkhead counts every request that found the lane full, refused or let through
+            long full = bulkhead.getRejected();
+            metrics.add(new Metric<Long>("counter." + prefix + "rejected", lane.rejectWhenFull ? full : 0));
+            metrics.add(new Metric<Long>("counter." + prefix + "overflow", lane.rejectWhenFull ? 0 : full));
+        }
+        return metrics;
+    }
+
+    /**
+     * A lane that lets requests through once full never makes them wait
+     */
+    private static Bulkhead bulkhead(int maxConcurrent, long maxWaitMs, int maxQueued, boolean rejectWhenFull) {
+        return rejectWhenFull ? new Bulkhead(maxConcurrent, maxWaitMs, maxQueued) : new Bulkhead(maxConcurrent, 0, 0);
+    }
+
+    private Lane laneFor(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if (path == null || !path.startsWith(API_PATH)) {
+            return actuator;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                if (ROLE_ADMIN.equals(authority.getAuthority())) {
+                    return admin;
+                }
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Answer a refused request as the exception handler would, in JSON as the request is refused before the
+     * dispatcher is reached
+     */
+    private void refuse(HttpServletRequest request, HttpServletResponse response, ServiceUnavailableException refused)
+            throws IOException {
+
+        String correlationId = request.getHeader(CorrelationIdFilter.HEADER);
+        correlationId = StringUtils.hasText(correlationId) ? correlationId : "undefined";
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(CorrelationIdFilter.HEADER, correlationId);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(correlationId, System.currentTimeMillis(),
+                HttpStatus.SERVICE_UNAVAILABLE, refused.getClass(), refused.getMessage(),
+                request.getContextPath() + request.getServletPath()));
+    }
+
+    /**
+     * A lane's limit, what is done with requests once it is full, and how long it has made requests wait
+     */
+    static class Lane {
+
+        private final String name;
+
+        private final Bulkhead bulkhead;
+
+        private final boolean rejectWhenFull;
+
+        private final LatencyTimer queueWait;
+
+        Lane(String name, Bulkhead bulkhead, boolean rejectWhenFull, ApiMetrics apiMetrics) {
+            this.name = name;
+            this.bulkhead = bulkhead;
+            this.rejectWhenFull = rejectWhenFull;
+            this.queueWait = apiMetrics.timer("lane." + name + ".queue_wait");
+        }
+    }
+}
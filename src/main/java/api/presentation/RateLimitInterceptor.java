@@ -0,0 +1,139 @@
+package api.presentation;
+
+import api.common.exceptions.TooManyRequestsException;
+import api.common.resilience.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rate of requests each authenticated caller makes to each endpoint, so that no one caller can take
+ * every request thread. Each caller and endpoint pair has its own {@link TokenBucket}, allowing a burst of requests
+ * and then a steady rate. A request over the limit is refused before the controller is called with
+ * TOO_MANY_REQUESTS, a Retry-After header giving the seconds until it would be allowed and the usual error body
+ * with the correlationId. Callers with the admin role are not limited unless the bypass is turned off.
+ * <p/>
+ * Off unless enabled: callers are told apart by their principal, which every API client currently shares.
+ * <p/>
+ * Buckets are dropped once unused for the idle time, when a bucket would have refilled anyway, and the number kept
+ * is bounded. Published on the actuator metrics endpoint as counter.rate_limit.rejected, counter.rate_limit.bypassed
+ * and gauge.rate_limit.buckets.
+ */
+@Component
+public class RateLimitInterceptor extends HandlerInterceptorAdapter implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    private final boolean enabled;
+
+    private final int burst;
+
+    private final double refillPerSecond;
+
+    private final boolean adminBypass;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder bypassed = new LongAdder();
+
+    public RateLimitInterceptor(@Value("${rate_limit.enabled:false}") boolean enabled,
+                                @Value("${rate_limit.burst:100}") int burst,
+                                @Value("${rate_limit.refill_per_second:50}") double refillPerSecond,
+                                @Value("${rate_limit.admin_bypass:true}") boolean adminBypass,
+                                @Value("${rate_limit.maximum_buckets:10000}") long maximumBuckets,
+                                @Value("${rate_limit.idle_seconds:600}") long idleSeconds) {
+
+        logger.debug("Rate limit {} with burst {}, refill {}/s and admin bypass {}",
+                enabled ? "enabled" : "disabled", burst, refillPerSecond, adminBypass);
+
+        this.enabled = enabled;
+        this.burst = burst;
+        this.refillPerSecond = refillPerSecond;
+        this.adminBypass = adminBypass;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        // The dispatch completing an asynchronous request was counted when it started
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return true;
+        }
+        if (adminBypass && isAdmin(authentication)) {
+            bypassed.increment();
+            return true;
+        }
+
+        long waitNanos = bucketFor(authentication.getName(), endpoint(request)).tryAcquire();
+        if (waitNanos > 0) {
+            rejected.increment();
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1;
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            throw TooManyRequestsException.withoutStackTrace(
+                    "Rate limit exceeded, retry after " + retryAfterSeconds + " seconds");
+        }
+        return true;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Long>("counter.rate_limit.rejected", rejected.sum()));
+        metrics.add(new Metric<Long>("counter.rate_limit.bypassed", bypassed.sum()));
+        metrics.add(new Metric<Long>("gauge.rate_limit.buckets", buckets.estimatedSize()));
+        return metrics;
+    }
+
+    private TokenBucket bucketFor(String principal, String endpoint) {
+        return buckets.get(principal + ' ' + endpoint, key -> new TokenBucket(burst, refillPerSecond));
+    }
+
+    /**
+     * @return the mapping the request matched, so that each endpoint is limited whatever its query parameters
+     */
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getServletPath();
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (ROLE_ADMIN.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+package api.presentation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.util.Assert;
+
+/**
+ * Reads and writes Jackson Smile. Spring provides no Smile converter until Spring 5.
+ */
+public class SmileHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public SmileHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, ApiMediaTypes.APPLICATION_SMILE);
+        Assert.isInstanceOf(SmileFactory.class, objectMapper.getFactory(), "SmileFactory required");
+    }
+}
@@ -1,21 +1,40 @@
 package api.presentation.controller;
 
 import api.business.Service;
+import api.business.model.BatchError;
+import api.business.model.BatchRequest;
+import api.business.model.BatchResponse;
 import api.business.model.Response;
 import api.common.exceptions.BadRequestException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.presentation.ApiMediaTypes;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @RestController
 public class Controller {
@@ -26,24 +45,48 @@ public class Controller {
     @Autowired
     Service service;
 
-    // ID must contain up to 3 letters then numbers, using regex
-    private static final String ID_REGEX = "^[a-zA-Z]{1,3}[0-9]+";
+    @Autowired
+    ObjectMapper objectMapper;
+
+    // ID must contain up to 3 letters then numbers, using regex compiled once rather than by String.matches on each call
+    static final Pattern ID_PATTERN = Pattern.compile("^[a-zA-Z]{1,3}[0-9]+");
+
+    private static final String INVALID_ID_MESSAGE = "The ID must contain up to 3 letters, then numbers";
+
+    /**
+     * the maximum number of ids accepted in a single batch request
+     */
+    @Value("${batch.max_ids:100}")
+    int maxBatchIds = 100;
+
+    /**
+     * the time an asynchronous request may wait for its DAO work before it is abandoned
+     */
+    @Value("${dao_executor.timeout_ms:5000}")
+    long asyncTimeoutMs = 5000;
+
+    /**
+     * the number of rows written to a streamed response between flushes
+     */
+    @Value("${stream.flush_rows:64}")
+    int streamFlushRows = 64;
 
     /**
      * represents the format mask of the dates entered as query parameters
      */
     private static final String DATE_FORMAT_MASK = "dd-MM-yyyy";
 
-    @RequestMapping(method = RequestMethod.GET, value = "/api/info", produces = MediaType.APPLICATION_JSON_VALUE)
+    @RequestMapping(method = RequestMethod.GET, value = "/api/info",
+            produces = {MediaType.APPLICATION_JSON_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE, ApiMediaTypes.APPLICATION_CBOR_VALUE})
     @Secured("ROLE_USER")
     public ResponseEntity<Response> getInfo(
             @RequestHeader(value = "CorrelationId", defaultValue = ("undefined")) String correlationId,
             @RequestParam(value = "id", required = true) String id) {
 
-        logger.info("CorrelationId: {} Request received", correlationId);
+        logger.debug("Request received");
 
-        if (!id.matches(ID_REGEX)){
-            throw new BadRequestException("The ID must contain up to 3 letters, then numbers");
+        if (!ID_PATTERN.matcher(id).matches()){
+            throw BadRequestException.withoutStackTrace(INVALID_ID_MESSAGE);
         }
 
         // Where no tax year has been specified retrieve for the current tax year
@@ -54,8 +97,125 @@ public class Controller {
         responseHeaders.add("CorrelationId", correlationId);
         ResponseEntity<Response> response = new ResponseEntity<Response>(responseBody, responseHeaders, HttpStatus.OK);
 
-        logger.info("CorrelationId: {} Dispatching response", correlationId);
-        logger.debug("CorrelationId: {} Response detail {}", response.toString());
+        logger.debug("Dispatching response");
+        logger.debug("Response detail {}", response);
+
+        return response;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getInfo(String, String)}. The request thread is released while the DAO
+     * work runs on the DAO executor; a request that runs past its timeout is cancelled and answered with
+     * SERVICE_UNAVAILABLE.
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/api/info/async",
+            produces = {MediaType.APPLICATION_JSON_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE, ApiMediaTypes.APPLICATION_CBOR_VALUE})
+    @Secured("ROLE_USER")
+    public DeferredResult<ResponseEntity<Response>> getInfoAsync(
+            @RequestHeader(value = "CorrelationId", defaultValue = ("undefined")) final String correlationId,
+            @RequestParam(value = "id", required = true) String id) {
+
+        logger.debug("Async request received");
+
+        if (!ID_PATTERN.matcher(id).matches()){
+            throw BadRequestException.withoutStackTrace(INVALID_ID_MESSAGE);
+        }
+
+        final DeferredResult<ResponseEntity<Response>> result = new DeferredResult<>(asyncTimeoutMs);
+        final ListenableFuture<Response> future = service.getInfoAsync(id);
+
+        // Set the error before cancelling, cancelling completes the future with a CancellationException
+        result.onTimeout(() -> {
+            result.setErrorResult(ServiceUnavailableException.withoutStackTrace(
+                    String.format("Request not completed within %d milliSeconds", asyncTimeoutMs)));
+            future.cancel(true);
+        });
+
+        future.addCallback(responseBody -> {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.add("CorrelationId", correlationId);
+            logger.debug("Dispatching async response");
+            result.setResult(new ResponseEntity<Response>(responseBody, responseHeaders, HttpStatus.OK));
+        }, result::setErrorResult);
+
+        return result;
+    }
+
+    /**
+     * Streaming variant of {@link #getInfo(String, String)}, selected with Accept: application/x-ndjson. Rows are
+     * written one per line as the DAO reads them, so memory use does not grow with the size of the result. A
+     * failure before the first row is answered with an ordinary error response; a failure after that ends the
+     * stream with an error line, as the status has already been sent.
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/api/info", produces = ApiMediaTypes.APPLICATION_NDJSON_VALUE)
+    @Secured("ROLE_USER")
+    public void streamInfo(
+            @RequestHeader(value = "CorrelationId", defaultValue = ("undefined")) String correlationId,
+            @RequestParam(value = "id", required = true) String id,
+            HttpServletResponse servletResponse) throws IOException {
+
+        logger.debug("Stream request received");
+
+        if (!ID_PATTERN.matcher(id).matches()){
+            throw BadRequestException.withoutStackTrace(INVALID_ID_MESSAGE);
+        }
+
+        NdjsonWriter writer = new NdjsonWriter(servletResponse, correlationId, objectMapper, streamFlushRows);
+        try {
+            service.streamInfo(id, writer);
+        } catch (UncheckedIOException e) {
+            // The client has gone away, there is no one left to tell
+            logger.info("Stream abandoned by client after {} rows", writer.getRows());
+            return;
+        } catch (RuntimeException e) {
+            if (!writer.isStarted()) {
+                throw e;
+            }
+            logger.error("Stream failed after {} rows: ", writer.getRows(), e);
+            writer.fail(e);
+            return;
+        }
+        writer.finish();
+
+        logger.debug("Dispatched stream of {} rows", writer.getRows());
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/api/info/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE, ApiMediaTypes.APPLICATION_CBOR_VALUE})
+    @Secured("ROLE_USER")
+    public ResponseEntity<BatchResponse> getInfoBatch(
+            @RequestHeader(value = "CorrelationId", defaultValue = ("undefined")) String correlationId,
+            @RequestBody BatchRequest batchRequest) {
+
+        logger.debug("Batch request received");
+
+        if (batchRequest.getIds() == null || batchRequest.getIds().isEmpty()) {
+            throw BadRequestException.withoutStackTrace("At least one ID must be supplied");
+        }
+        if (batchRequest.getIds().size() > maxBatchIds) {
+            throw BadRequestException.withoutStackTrace(String.format("No more than %d IDs may be supplied", maxBatchIds));
+        }
+
+        // Invalid ids are reported individually rather than failing the whole batch
+        Set<String> ids = new LinkedHashSet<>();
+        Map<String, BatchError> invalid = new LinkedHashMap<>();
+        for (String id : batchRequest.getIds()) {
+            if (id != null && ID_PATTERN.matcher(id).matches()) {
+                ids.add(id);
+            } else {
+                invalid.put(String.valueOf(id), new BatchError(HttpStatus.BAD_REQUEST, INVALID_ID_MESSAGE));
+            }
+        }
+
+        BatchResponse responseBody = ids.isEmpty() ? new BatchResponse() : service.getInfoBatch(ids);
+        responseBody.getErrors().putAll(invalid);
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.add("CorrelationId", correlationId);
+        ResponseEntity<BatchResponse> response = new ResponseEntity<BatchResponse>(responseBody, responseHeaders, HttpStatus.OK);
+
+        logger.debug("Dispatching batch response");
 
         return response;
     }
@@ -0,0 +1,121 @@
+package api.presentation.controller;
+
+import api.business.model.BatchError;
+import api.business.model.Model;
+import api.presentation.ApiMediaTypes;
+import api.presentation.ExceptionStatuses;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpStatus;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows to the servlet output stream as newline delimited JSON, one row per line, as they are handed over.
+ * <p/>
+ * Nothing is written until the first row arrives, so a lookup that fails straight away is still answered with an
+ * ordinary error response. Rows pass through the generator's buffer to the blocking servlet output stream, so a
+ * slow client holds up the thread producing the rows rather than letting them build up in memory. The stream is
+ * flushed after the first row and then every {@code flushEvery} rows.
+ */
+class NdjsonWriter implements Consumer<Model> {
+
+    private final HttpServletResponse servletResponse;
+
+    private final String correlationId;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter rowWriter;
+
+    private final int flushEvery;
+
+    private JsonGenerator generator;
+
+    private int rows;
+
+    NdjsonWriter(HttpServletResponse servletResponse, String correlationId, ObjectMapper objectMapper, int flushEvery) {
+        this.servletResponse = servletResponse;
+        this.correlationId = correlationId;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writerFor(Model.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Write a row, starting the response first if this is the first row. A failure to write, such as the client
+     * having gone away, is thrown as an {@link UncheckedIOException} so that the producer stops reading rows.
+     */
+    @Override
+    public void accept(Model model) {
+        try {
+            if (generator == null) {
+                start();
+            }
+            rowWriter.writeValue(generator, model);
+            generator.writeRaw('\n');
+            rows++;
+            if (rows == 1 || rows % flushEvery == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return whether the response has been started, after which the status can no longer be changed
+     */
+    boolean isStarted() {
+        return generator != null;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * Complete the response
+     */
+    void finish() throws IOException {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    /**
+     * End a started response with a final line describing the failure, in the same form as a batch error, so the
+     * client can tell a truncated result from a complete one.
+     */
+    void fail(Exception ex) throws IOException {
+        HttpStatus status = ExceptionStatuses.of(ex.getClass());
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValue(generator, new BatchError(status, ex.getMessage()));
+        generator.writeRaw('\n');
+        generator.close();
+    }
+
+    private void start() throws IOException {
+        servletResponse.setStatus(HttpServletResponse.SC_OK);
+        servletResponse.setContentType(ApiMediaTypes.APPLICATION_NDJSON_VALUE);
+        servletResponse.setCharacterEncoding("UTF-8");
+        servletResponse.setHeader("CorrelationId", correlationId);
+        generator = objectMapper.getFactory().createGenerator(servletResponse.getOutputStream());
+        generator.setRootValueSeparator(null);
+    }
+}
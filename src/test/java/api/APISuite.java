@@ -1,6 +1,29 @@
 package api;
 
+import api.business.ConcurrencyLimitTest;
+import api.business.DAOGuardTest;
+import api.business.KnownIdsTest;
+import api.business.ResponseCacheTest;
+import api.business.ServiceImplTest;
+import api.common.logging.CountingAsyncAppenderTest;
+import api.common.logging.LogFileDefinerTest;
+import api.common.metrics.ApiMetricsTest;
+import api.common.resilience.AdaptiveLimiterTest;
+import api.common.resilience.CircuitBreakerTest;
+import api.common.resilience.TokenBucketTest;
+import api.common.security.CachingAuthenticationProviderTest;
+import api.common.utils.AppClockTest;
+import api.common.utils.BloomFilterTest;
+import api.common.utils.DateEngineTest;
 import api.common.utils.DateUtilsTest;
+import api.common.utils.InternerTest;
+import api.common.utils.TaxYearCalculatorTest;
+import api.integration.HttpDAOImplTest;
+import api.presentation.CorrelationIdFilterTest;
+import api.presentation.DeadlineFilterTest;
+import api.presentation.LoggingResponseEntityExceptionHandlerTest;
+import api.presentation.PriorityLaneFilterTest;
+import api.presentation.RateLimitInterceptorTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import api.presentation.controller.ControllerTest;
@@ -8,8 +31,33 @@ import api.presentation.controller.ControllerTest;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+        AdaptiveLimiterTest.class,
+        ApiMetricsTest.class,
+        AppClockTest.class,
+        BloomFilterTest.class,
+        CachingAuthenticationProviderTest.class,
+        CircuitBreakerTest.class,
+        ConcurrencyLimitTest.class,
         ControllerTest.class,
-        DateUtilsTest.class
+        CorrelationIdFilterTest.class,
+        CountingAsyncAppenderTest.class,
+        LogFileDefinerTest.class,
+        DAOGuardTest.class,
+        DateEngineTest.class,
+        DateUtilsTest.class,
+        DeadlineFilterTest.class,
+        JacksonConfigTest.class,
+        KnownIdsTest.class,
+        LoggingResponseEntityExceptionHandlerTest.class,
+        PriorityLaneFilterTest.class,
+        RateLimitInterceptorTest.class,
+        ResponseCacheTest.class,
+        HttpDAOImplTest.class,
+        InternerTest.class,
+        ServiceImplTest.class,
+        TaxYearCalculatorTest.class,
+        TomcatConfigTest.class,
+        TokenBucketTest.class
 })
 public class APISuite {
 }
\ No newline at end of file
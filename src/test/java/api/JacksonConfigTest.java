@@ -0,0 +1,59 @@
+package api;
+
+import api.business.model.Model;
+import api.business.model.Response;
+import org.junit.Test;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class JacksonConfigTest {
+
+    private final JacksonConfig config = new JacksonConfig();
+
+    private final Jackson2ObjectMapperBuilder builder = config.jacksonBuilder();
+
+    private final Response response = new Response(Collections.singletonList(
+            new Model("name", "al1", "al2", "al3", "al4", null, "pc")));
+
+    @Test
+    public void jsonIsNotIndentedByDefault() throws IOException {
+
+        String json = builder.build().writeValueAsString(response);
+
+        assertFalse(json.contains("\n"));
+        assertFalse(json.contains("address_line_5"));
+    }
+
+    @Test
+    public void smileRoundTrip() throws IOException {
+        assertRoundTrip(config.smileHttpMessageConverter(builder));
+    }
+
+    @Test
+    public void cborRoundTrip() throws IOException {
+        assertRoundTrip(config.cborHttpMessageConverter(builder));
+    }
+
+    private void assertRoundTrip(AbstractJackson2HttpMessageConverter converter) throws IOException {
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(response, converter.getSupportedMediaTypes().get(0), output);
+
+        Response read = (Response) converter.read(Response.class, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+        Model model = read.getModels().get(0);
+        assertEquals("name", model.getName());
+        assertEquals("al4", model.getAddress_line_4());
+        assertNull(model.getAddress_line_5());
+        assertEquals("pc", model.getPostcode());
+    }
+}
@@ -0,0 +1,71 @@
+package api;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http11.Http11Nio2Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.Test;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TomcatConfigTest {
+
+    private final TomcatConfig config = new TomcatConfig();
+
+    @Test
+    public void connectorSettingsAreApplied() {
+
+        config.acceptorThreads = 2;
+        config.keepAliveTimeoutMs = 30000;
+        config.maxKeepAliveRequests = -1;
+        config.h2c = true;
+
+        Connector connector = new Connector(TomcatEmbeddedServletContainerFactory.DEFAULT_PROTOCOL);
+        config.customizeConnector(connector);
+
+        AbstractHttp11Protocol<?> http = (AbstractHttp11Protocol<?>) connector.getProtocolHandler();
+        assertEquals(2, http.getAcceptorThreadCount());
+        assertEquals(30000, http.getKeepAliveTimeout());
+        assertEquals(-1, http.getMaxKeepAliveRequests());
+        assertEquals(1, connector.findUpgradeProtocols().length);
+        assertTrue(connector.findUpgradeProtocols()[0] instanceof Http2Protocol);
+    }
+
+    @Test
+    public void serverTomcatSettingsAreLeftAlone() {
+
+        // As set from server.tomcat and server.connection-timeout
+        Connector connector = new Connector(TomcatEmbeddedServletContainerFactory.DEFAULT_PROTOCOL);
+        AbstractHttp11Protocol<?> http = (AbstractHttp11Protocol<?>) connector.getProtocolHandler();
+        http.setMaxThreads(150);
+        http.setMinSpareThreads(50);
+        http.setMaxConnections(5000);
+        http.setAcceptCount(500);
+        http.setConnectionTimeout(7000);
+
+        config.customizeConnector(connector);
+
+        assertEquals(150, http.getMaxThreads());
+        assertEquals(50, http.getMinSpareThreads());
+        assertEquals(5000, http.getMaxConnections());
+        assertEquals(500, http.getAcceptCount());
+        assertEquals(7000, http.getConnectionTimeout());
+        // keep_alive_timeout_ms -1 leaves the keep alive timeout to follow the connection timeout
+        assertEquals(7000, http.getKeepAliveTimeout());
+        assertEquals(0, connector.findUpgradeProtocols().length);
+    }
+
+    @Test
+    public void nio2CanBeSelected() {
+
+        config.protocol = "nio2";
+        config.logDir = "target";
+        TomcatEmbeddedServletContainerFactory factory = new TomcatEmbeddedServletContainerFactory();
+        config.customize(factory);
+
+        assertEquals(Http11Nio2Protocol.class.getName(), ReflectionTestUtils.getField(factory, "protocol"));
+    }
+}
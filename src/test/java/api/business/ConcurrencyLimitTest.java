@@ -0,0 +1,84 @@
+package api.business;
+
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.resilience.AdaptiveLimiter;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyLimitTest {
+
+    private AdaptiveLimiter limiter;
+
+    private ConcurrencyLimit concurrencyLimit;
+
+    @Before
+    public void setup() {
+        limiter = new AdaptiveLimiter(1, 1, 10, 0.2, 1.5, 10, 100);
+        concurrencyLimit = new ConcurrencyLimit(true, limiter);
+    }
+
+    @Test
+    public void callOverTheLimitIsRefusedWithoutCalling() {
+
+        concurrencyLimit.call(() -> {
+            try {
+                concurrencyLimit.call(() -> {
+                    fail("Call should not be made over the limit");
+                    return null;
+                });
+                fail("Expected ServiceUnavailableException");
+            } catch (ServiceUnavailableException e) {
+                assertEquals("Too many requests in progress", e.getMessage());
+            }
+            return null;
+        });
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    public void notFoundIsTimedButFailureIsNot() {
+
+        try {
+            concurrencyLimit.call(() -> concurrencyLimit.measure(() -> {
+                throw new ServiceUnavailableException("Unable to retrieve data");
+            }));
+        } catch (ServiceUnavailableException e) {
+            // expected
+        }
+        assertEquals(0, limiter.getShortRtt(), 0);
+
+        try {
+            concurrencyLimit.call(() -> concurrencyLimit.measure(() -> {
+                throw new ResourceNotFoundException("No data available for this id: AB1");
+            }));
+        } catch (ResourceNotFoundException e) {
+            // expected
+        }
+        assertEquals(0, limiter.getInFlight());
+        assertTrue(limiter.getShortRtt() > 0);
+    }
+
+    @Test
+    public void onlyMeasuredCallsAreTimed() {
+
+        assertEquals("cached", concurrencyLimit.call(() -> "cached"));
+        assertEquals(0, limiter.getShortRtt(), 0);
+
+        assertEquals("result", concurrencyLimit.call(() -> concurrencyLimit.measure(() -> "result")));
+        assertTrue(limiter.getShortRtt() > 0);
+    }
+
+    @Test
+    public void disabledLimitAllowsEveryCall() {
+
+        concurrencyLimit = new ConcurrencyLimit(false, limiter);
+        assertEquals("result", concurrencyLimit.call(() -> concurrencyLimit.call(() -> "result")));
+        assertEquals(0, limiter.getRejected());
+    }
+}
@@ -0,0 +1,101 @@
+package api.business;
+
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.resilience.Bulkhead;
+import api.common.resilience.CircuitBreaker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DAOGuardTest {
+
+    private CircuitBreaker circuitBreaker;
+
+    private DAOGuard daoGuard;
+
+    @Before
+    public void setup() {
+        circuitBreaker = new CircuitBreaker("test", 50, 100, 60000, 10, 4, 60000, 1);
+        daoGuard = new DAOGuard(circuitBreaker, new Bulkhead(1, 0));
+    }
+
+    @Test
+    public void notFoundIsNotAFailure() {
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                daoGuard.call(() -> {
+                    throw new ResourceNotFoundException("No data available for this id: AB1");
+                });
+                fail("Expected ResourceNotFoundException");
+            } catch (ResourceNotFoundException e) {
+                // expected
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0f, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void openCircuitRefusesWithoutCalling() {
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                daoGuard.call(() -> {
+                    throw new ServiceUnavailableException("Unable to retrieve data");
+                });
+            } catch (ServiceUnavailableException e) {
+                // expected
+            }
+        }
+
+        try {
+            daoGuard.call(() -> {
+                fail("Call should not be made while the circuit is open");
+                return null;
+            });
+            fail("Expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            assertEquals("Backend unavailable, calls are suspended", e.getMessage());
+        }
+        // The refused call gave back its place in the bulkhead
+        assertEquals(1, daoGuard.getBulkhead().getAvailable());
+    }
+
+    @Test
+    public void fullBulkheadRefusesCall() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> daoGuard.call(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try {
+            daoGuard.call(() -> "result");
+            fail("Expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            assertEquals("Too many calls to the backend in progress", e.getMessage());
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+        assertEquals(1, daoGuard.getBulkhead().getRejected());
+        assertEquals("result", daoGuard.call(() -> "result"));
+    }
+}
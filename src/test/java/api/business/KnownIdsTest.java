@@ -0,0 +1,134 @@
+package api.business;
+
+import api.common.exceptions.ServiceUnavailableException;
+import api.integration.DAO;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KnownIdsTest {
+
+    @InjectMocks
+    private KnownIds knownIds;
+
+    @Mock
+    private DAO dao;
+
+    private int ids;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        knownIds.enabled = true;
+        knownIds.minimumExpectedIds = 100;
+        when(dao.forEachId(any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<String> consumer = (Consumer<String>) invocation.getArguments()[0];
+            for (int i = 0; i < ids; i++) {
+                consumer.accept("AB" + i);
+            }
+            return true;
+        });
+    }
+
+    @Test
+    public void everyIdMightExistUntilBuilt() {
+        assertTrue(knownIds.mightExist("ZZ1"));
+        assertEquals(-1L, metrics().get("gauge.known_ids.size"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void filterIsOffUnlessEnabled() {
+        ids = 50;
+        knownIds = new KnownIds();
+        ReflectionTestUtils.setField(knownIds, "dao", dao);
+        knownIds.refresh();
+        assertTrue(knownIds.mightExist("ZZ1"));
+        verify(dao, never()).forEachId(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void everyIdMightExistWhenTheDaoCannotListThem() {
+        doReturn(false).when(dao).forEachId(any(Consumer.class));
+        knownIds.refresh();
+        assertTrue(knownIds.mightExist("ZZ1"));
+    }
+
+    @Test
+    public void absentIdsAreRejectedAndCounted() {
+
+        ids = 50;
+        knownIds.refresh();
+
+        for (int i = 0; i < ids; i++) {
+            assertTrue(knownIds.mightExist("AB" + i));
+        }
+        int rejected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!knownIds.mightExist("ZZ" + i)) {
+                rejected++;
+            } else {
+                knownIds.notFound("ZZ" + i);
+            }
+        }
+
+        Map<String, Number> metrics = metrics();
+        assertEquals(50L, metrics.get("gauge.known_ids.size"));
+        assertEquals((long) rejected, metrics.get("counter.known_ids.rejected"));
+        assertEquals(1000L - rejected, metrics.get("counter.known_ids.false_positives"));
+        assertEquals((1000 - rejected) / 1000.0, metrics.get("gauge.known_ids.observed_false_positive_rate").doubleValue(), 1e-9);
+    }
+
+    @Test
+    public void filterIsResizedWhenTheIdsOutgrowIt() {
+
+        ids = 1000;
+        knownIds.refresh();
+
+        Map<String, Number> metrics = metrics();
+        assertEquals(1000L, metrics.get("gauge.known_ids.size"));
+        assertTrue(metrics.get("gauge.known_ids.expected_false_positive_rate").doubleValue() < 0.02);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void filterIsKeptWhenListingFails() {
+
+        ids = 50;
+        knownIds.refresh();
+        doThrow(new ServiceUnavailableException("Unable to list ids")).when(dao).forEachId(any(Consumer.class));
+        knownIds.refresh();
+
+        assertEquals(50L, metrics().get("gauge.known_ids.size"));
+        assertTrue(knownIds.mightExist("AB0"));
+        assertFalse(knownIds.mightExist("ZZ0"));
+    }
+
+    private Map<String, Number> metrics() {
+        Map<String, Number> values = new HashMap<>();
+        for (Metric<?> metric : knownIds.metrics()) {
+            values.put(metric.getName(), metric.getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,279 @@
+package api.business;
+
+import api.business.model.Response;
+import api.common.exceptions.ResourceNotFoundException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ResponseCacheTest {
+
+    private static final String ID = "AB123456";
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ResponseCache responseCache;
+
+    private Response loaded;
+
+    @Before
+    public void setup() {
+        // Expires after 100s, refreshed after 80s and served stale for up to 60s after expiry
+        responseCache = new ResponseCache(100, 100, 0.8, 60, 3600, nanos::get, Runnable::run);
+        loaded = new Response();
+    }
+
+    @Test
+    public void hitsAndMissesAreCounted() {
+
+        Map<String, Number> metrics = metrics();
+        assertEquals(0L, metrics.get("cache.response.hit"));
+        assertEquals(0L, metrics.get("cache.response.miss"));
+        assertEquals(1.0, metrics.get("cache.response.hit.ratio"));
+
+        assertNull(responseCache.get(ID));
+        Response response = new Response();
+        responseCache.put(ID, response);
+        assertSame(response, responseCache.get(ID));
+        assertSame(response, responseCache.get(ID));
+        assertNull(responseCache.get("CD1"));
+
+        metrics = metrics();
+        assertEquals(1L, metrics.get("cache.response.size"));
+        assertEquals(2L, metrics.get("cache.response.hit"));
+        assertEquals(2L, metrics.get("cache.response.miss"));
+        assertEquals(0.5, metrics.get("cache.response.hit.ratio"));
+    }
+
+    @Test
+    public void expiredEntryIsCountedAsAMiss() {
+
+        responseCache.put(ID, new Response());
+        advance(100);
+
+        assertNull(responseCache.get(ID));
+        Map<String, Number> metrics = metrics();
+        assertEquals(0L, metrics.get("cache.response.hit"));
+        assertEquals(1L, metrics.get("cache.response.miss"));
+    }
+
+    @Test
+    public void entriesBeyondTheMaximumSizeAreEvicted() {
+
+        responseCache = new ResponseCache(2, 100, 0.8, 60, 3600, nanos::get, Runnable::run);
+        for (int i = 0; i < 10; i++) {
+            responseCache.put("AB" + i, new Response());
+        }
+
+        Map<String, Number> metrics = metrics();
+        assertEquals(2L, metrics.get("cache.response.size"));
+        assertEquals(8L, metrics.get("cache.response.eviction"));
+        assertEquals(2L, metrics.get("cache.response.last_known_good.size"));
+    }
+
+    @Test
+    public void invalidatedEntryIsNoLongerHeld() {
+
+        responseCache.put(ID, new Response());
+        responseCache.invalidate(ID);
+
+        assertNull(responseCache.get(ID));
+        assertNull(responseCache.getLastKnownGood(ID));
+        assertEquals(0L, metrics().get("cache.response.size"));
+    }
+
+    @Test
+    public void peekIsNotCountedAndStartsNoReload() {
+
+        assertNull(responseCache.peek(ID));
+        Response response = cache();
+        advance(80);
+        assertSame(response, responseCache.peek(ID));
+        advance(20);
+        assertNull(responseCache.peek(ID));
+
+        Map<String, Number> metrics = metrics();
+        assertEquals(0L, metrics.get("cache.response.hit"));
+        assertEquals(0L, metrics.get("cache.response.miss"));
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void freshEntryIsNotReloaded() {
+
+        Response response = cache();
+        advance(79);
+
+        assertSame(response, responseCache.get(ID));
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void entryDueForRefreshIsServedAndReloadedOnce() {
+
+        Response response = cache();
+        advance(80);
+
+        assertSame(response, responseCache.get(ID));
+        assertSame(response, responseCache.get(ID));
+        assertEquals(1, tasks.size());
+
+        runTasks();
+        assertEquals(1, loads.get());
+        assertSame(loaded, responseCache.get(ID));
+        assertEquals(1L, metrics().get("cache.response.refresh"));
+
+        // Once the reload has finished the id can be reloaded again
+        advance(80);
+        responseCache.get(ID);
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void staleEntryIsServedWithinGrace() {
+
+        Response response = cache();
+        advance(159);
+
+        assertSame(response, responseCache.get(ID));
+        assertEquals(1L, metrics().get("cache.response.hit.stale"));
+        runTasks();
+        assertSame(loaded, responseCache.get(ID));
+    }
+
+    @Test
+    public void entryIsGoneAfterGrace() {
+        cache();
+        advance(160);
+        assertNull(responseCache.get(ID));
+    }
+
+    @Test
+    public void lastKnownGoodIsKeptBeyondGrace() {
+
+        Response response = cache();
+        advance(160);
+        assertNull(responseCache.get(ID));
+        assertSame(response, responseCache.getLastKnownGood(ID));
+        assertEquals(0, tasks.size());
+
+        advance(3600);
+        assertNull(responseCache.getLastKnownGood(ID));
+    }
+
+    @Test
+    public void entryKeptOnlyAsLastKnownGoodIsCountedAsAMiss() {
+
+        Response response = cache();
+        assertSame(response, responseCache.get(ID));
+        advance(160);
+        assertNull(responseCache.get(ID));
+        assertSame(response, responseCache.getLastKnownGood(ID));
+
+        Map<String, Number> metrics = metrics();
+        assertEquals(1L, metrics.get("cache.response.hit"));
+        assertEquals(1L, metrics.get("cache.response.miss"));
+        assertEquals(0.5, metrics.get("cache.response.hit.ratio"));
+        assertEquals(1L, metrics.get("cache.response.last_known_good.size"));
+    }
+
+    @Test
+    public void staleEntryIsNotServedWithoutRefresher() {
+
+        responseCache.put(ID, new Response());
+        advance(100);
+
+        assertNull(responseCache.get(ID));
+    }
+
+    @Test
+    public void failedReloadKeepsEntry() {
+
+        Response response = cache();
+        responseCache.setRefresher(id -> {
+            throw new IllegalStateException("Unable to retrieve data");
+        }, tasks::add);
+        advance(80);
+
+        responseCache.get(ID);
+        runTasks();
+        assertSame(response, responseCache.get(ID));
+        assertEquals(1L, metrics().get("cache.response.refresh.failed"));
+    }
+
+    @Test
+    public void reloadOfRemovedIdInvalidatesEntry() {
+
+        cache();
+        responseCache.setRefresher(id -> {
+            throw new ResourceNotFoundException("No data available for this id: " + id);
+        }, tasks::add);
+        advance(80);
+
+        responseCache.get(ID);
+        runTasks();
+        assertNull(responseCache.get(ID));
+    }
+
+    @Test
+    public void rejectedReloadIsRetriedOnALaterRead() {
+
+        Response response = cache();
+        responseCache.setRefresher(id -> loaded, task -> {
+            throw new RejectedExecutionException("Refresh executor is full");
+        });
+        advance(80);
+
+        assertSame(response, responseCache.get(ID));
+        assertEquals(1L, metrics().get("cache.response.refresh.rejected"));
+
+        responseCache.setRefresher(id -> loaded, tasks::add);
+        responseCache.get(ID);
+        assertEquals(1, tasks.size());
+    }
+
+    private Response cache() {
+        Response response = new Response();
+        responseCache.put(ID, response);
+        responseCache.setRefresher(id -> {
+            loads.incrementAndGet();
+            return loaded;
+        }, tasks::add);
+        return response;
+    }
+
+    private void advance(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private void runTasks() {
+        List<Runnable> running = new ArrayList<>(tasks);
+        tasks.clear();
+        running.forEach(Runnable::run);
+    }
+
+    private Map<String, Number> metrics() {
+        Map<String, Number> values = new HashMap<>();
+        for (Metric<?> metric : responseCache.metrics()) {
+            values.put(metric.getName(), metric.getValue());
+        }
+        return values;
+    }
+}
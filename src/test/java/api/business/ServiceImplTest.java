@@ -0,0 +1,450 @@
+package api.business;
+
+import api.business.model.BatchResponse;
+import api.business.model.Model;
+import api.business.model.Response;
+import api.common.exceptions.DeadlineExceededException;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import api.common.resilience.AdaptiveLimiter;
+import api.common.resilience.Bulkhead;
+import api.common.resilience.CircuitBreaker;
+import api.common.utils.Deadline;
+import api.integration.DAO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServiceImplTest {
+
+    private static final int CALLERS = 20;
+
+    private static final String ID = "AB123456";
+
+    @InjectMocks
+    private ServiceImpl service;
+
+    @Mock
+    private DAO dao;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Spy
+    private ResponseCache responseCache = new ResponseCache(100, 60, 1, 0, 3600, nanos::get, Runnable::run);
+
+    @Spy
+    private NegativeCache negativeCache = new NegativeCache(100, 60);
+
+    @Spy
+    private KnownIds knownIds = new KnownIds();
+
+    @Spy
+    private DAOGuard daoGuard = new DAOGuard(new CircuitBreaker("dao", 50, 100, 60000, 50, 20, 60000, 5), new Bulkhead(50, 0));
+
+    @Spy
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit(true, new AdaptiveLimiter(100, 5, 200, 0.2, 1.5, 10, 600));
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        Deadline.set(null);
+    }
+
+    @Test
+    public void repeatedLookupIsServedFromCache() {
+
+        Response response = new Response(Collections.singletonList(new Model("name", "al1", "al2", "al3", "al4", "al5", "pc")));
+        when(dao.getInfo(ID)).thenReturn(response);
+
+        assertSame(response, service.getInfo(ID));
+        assertSame(response, service.getInfo(ID));
+        verify(dao, times(1)).getInfo(ID);
+    }
+
+    @Test
+    public void coldLookupIsCountedAsOneMiss() {
+
+        when(dao.getInfo(ID)).thenReturn(new Response());
+        service.getInfo(ID);
+        service.getInfo(ID);
+
+        Map<String, Number> metrics = new HashMap<>();
+        for (Metric<?> metric : responseCache.metrics()) {
+            metrics.put(metric.getName(), metric.getValue());
+        }
+        assertEquals(1L, metrics.get("cache.response.miss"));
+        assertEquals(1L, metrics.get("cache.response.hit"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamReplaysCachedResponse() {
+
+        Response response = new Response(Collections.singletonList(new Model("name", "al1", "al2", "al3", "al4", "al5", "pc")));
+        when(dao.getInfo(ID)).thenReturn(response);
+        service.getInfo(ID);
+
+        List<Model> rows = new ArrayList<>();
+        service.streamInfo(ID, rows::add);
+
+        assertEquals(response.getModels(), rows);
+        verify(dao, never()).streamInfo(eq(ID), any(Consumer.class));
+    }
+
+    @Test
+    public void concurrentCallersShareOneDaoCall() throws Exception {
+
+        final Response response = new Response();
+        final AtomicInteger daoCalls = new AtomicInteger();
+        final CountDownLatch allCalling = new CountDownLatch(CALLERS);
+
+        when(dao.getInfo(ID)).thenAnswer(invocation -> {
+            daoCalls.incrementAndGet();
+            allCalling.await();
+            // Give the remaining callers time to join the in flight call
+            Thread.sleep(200);
+            return response;
+        });
+
+        for (Future<Response> result : callConcurrently(allCalling)) {
+            assertSame(response, result.get());
+        }
+        assertEquals(1, daoCalls.get());
+    }
+
+    @Test
+    public void callersSharingOneDaoCallAreNotRefusedByTheLimit() throws Exception {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter(5, 1, 5, 0.2, 1.5, 10, 600);
+        ReflectionTestUtils.setField(service, "concurrencyLimit", new ConcurrencyLimit(true, limiter));
+        final Response response = new Response();
+        final AtomicInteger daoCalls = new AtomicInteger();
+        final CountDownLatch allCalling = new CountDownLatch(CALLERS);
+
+        when(dao.getInfo(ID)).thenAnswer(invocation -> {
+            daoCalls.incrementAndGet();
+            allCalling.await();
+            Thread.sleep(200);
+            return response;
+        });
+
+        for (Future<Response> result : callConcurrently(allCalling)) {
+            assertSame(response, result.get());
+        }
+        assertEquals(1, daoCalls.get());
+        assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    public void concurrentCallersShareOneException() throws Exception {
+
+        final ResourceNotFoundException notFound = new ResourceNotFoundException("No data available for this id: " + ID);
+        final AtomicInteger daoCalls = new AtomicInteger();
+        final CountDownLatch allCalling = new CountDownLatch(CALLERS);
+
+        when(dao.getInfo(ID)).thenAnswer(invocation -> {
+            daoCalls.incrementAndGet();
+            allCalling.await();
+            Thread.sleep(200);
+            throw notFound;
+        });
+
+        for (Future<Response> result : callConcurrently(allCalling)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertSame(notFound, e.getCause());
+                continue;
+            }
+            fail("Expected ResourceNotFoundException");
+        }
+        assertEquals(1, daoCalls.get());
+    }
+
+    @Test
+    public void notFoundIsRememberedUntilExpiry() {
+
+        when(dao.getInfo(ID)).thenThrow(new ResourceNotFoundException("No data available for this id: " + ID));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                service.getInfo(ID);
+                fail("Expected ResourceNotFoundException");
+            } catch (ResourceNotFoundException e) {
+                assertEquals("No data available for this id: " + ID, e.getMessage());
+            }
+        }
+        verify(dao, times(1)).getInfo(ID);
+
+        negativeCache.invalidate(ID);
+        Response response = new Response();
+        doReturn(response).when(dao).getInfo(ID);
+        assertSame(response, service.getInfo(ID));
+    }
+
+    @Test
+    public void batchSkipsIdsKnownToBeAbsent() {
+
+        String found = "AB000001";
+        Response response = new Response();
+        when(dao.getInfoBatch(anyCollectionOf(String.class))).thenReturn(Collections.singletonMap(found, response));
+
+        service.getInfoBatch(Arrays.asList(found, ID));
+        BatchResponse batchResponse = service.getInfoBatch(Arrays.asList(found, ID));
+
+        assertSame(response, batchResponse.getResults().get(found));
+        assertEquals(404, batchResponse.getErrors().get(ID).getStatus());
+        // The second batch is answered from the response and negative caches alone
+        verify(dao, times(1)).getInfoBatch(anyCollectionOf(String.class));
+        assertNotNull(negativeCache.get(ID));
+    }
+
+    @Test
+    public void lastKnownGoodIsServedWhileDaoUnavailable() {
+
+        Response response = new Response();
+        when(dao.getInfo(ID)).thenReturn(response);
+        service.getInfo(ID);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        doThrow(new ServiceUnavailableException("Unable to retrieve data")).when(dao).getInfo(ID);
+
+        assertSame(response, service.getInfo(ID));
+        verify(dao, times(2)).getInfo(ID);
+    }
+
+    @Test
+    public void lookupDuringAFailingRefreshIsServedLastKnownGood() throws Exception {
+
+        ResponseCache refreshingCache = new ResponseCache(100, 60, 0.5, 0, 3600, nanos::get, Runnable::run);
+        ReflectionTestUtils.setField(service, "responseCache", refreshingCache);
+        ReflectionTestUtils.setField(service, "refreshExecutor", executor);
+        service.init();
+        Response response = new Response();
+        when(dao.getInfo(ID)).thenReturn(response);
+        service.getInfo(ID);
+
+        final CountDownLatch refreshCalling = new CountDownLatch(1);
+        final AtomicInteger failedCalls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (failedCalls.incrementAndGet() == 1) {
+                refreshCalling.countDown();
+                Thread.sleep(300);
+            }
+            throw new ServiceUnavailableException("Unable to retrieve data");
+        }).when(dao).getInfo(ID);
+
+        // Served from the cache while it is reloaded in the background
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertSame(response, service.getInfo(ID));
+        refreshCalling.await();
+
+        // Expired while the reload is still failing
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertSame(response, service.getInfo(ID));
+    }
+
+    @Test
+    public void openCircuitFailsFastWithoutCallingDao() {
+
+        doThrow(new ServiceUnavailableException("Unable to retrieve data")).when(dao).getInfo(anyString());
+        for (int i = 0; i < 20; i++) {
+            try {
+                service.getInfo("AB" + i);
+                fail("Expected ServiceUnavailableException");
+            } catch (ServiceUnavailableException e) {
+                assertEquals("Unable to retrieve data", e.getMessage());
+            }
+        }
+
+        try {
+            service.getInfo(ID);
+            fail("Expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            assertEquals("Backend unavailable, calls are suspended", e.getMessage());
+        }
+        verify(dao, times(20)).getInfo(anyString());
+    }
+
+    @Test
+    public void limitHoldsThroughOutageServedFromCache() {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 20, 0.2, 1.5, 10, 600);
+        ReflectionTestUtils.setField(service, "concurrencyLimit", new ConcurrencyLimit(true, limiter, nanos::get));
+        // Other requests in progress, so that the limit is in use and adjusts to every sample
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        long daoTime = TimeUnit.MILLISECONDS.toNanos(10);
+        doAnswer(invocation -> {
+            nanos.addAndGet(daoTime);
+            return new Response();
+        }).when(dao).getInfo(anyString());
+        for (int i = 0; i < 20; i++) {
+            service.getInfo("AB" + i);
+        }
+        int limit = limiter.getLimit();
+
+        // The backend fails, the circuit opens and every lookup is answered with its last known good response
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        doThrow(new ServiceUnavailableException("Unable to retrieve data")).when(dao).getInfo(anyString());
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 20; i++) {
+                assertNotNull(service.getInfo("AB" + i));
+            }
+        }
+        assertEquals(daoTime, limiter.getLongRtt(), daoTime / 100);
+        assertEquals(limit, limiter.getLimit());
+
+        // The backend recovers at its old speed
+        ReflectionTestUtils.setField(service, "daoGuard",
+                new DAOGuard(new CircuitBreaker("dao", 50, 100, 60000, 50, 20, 60000, 5), new Bulkhead(50, 0)));
+        doAnswer(invocation -> {
+            nanos.addAndGet(daoTime);
+            return new Response();
+        }).when(dao).getInfo(anyString());
+        for (int i = 0; i < 20; i++) {
+            service.getInfo("AB" + i);
+        }
+        assertTrue(limiter.getLimit() >= limit);
+    }
+
+    @Test
+    public void expiredRequestIsRefusedWithoutCallingDao() {
+
+        Deadline.set(Deadline.after(0, TimeUnit.MILLISECONDS));
+        long expired = Deadline.expiredCounts().getOrDefault("service", 0L);
+
+        try {
+            service.getInfo(ID);
+            fail("Expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            assertEquals("Request deadline exceeded at service", e.getMessage());
+        }
+        verify(dao, never()).getInfo(anyString());
+        assertEquals(expired + 1, (long) Deadline.expiredCounts().get("service"));
+    }
+
+    @Test
+    public void coalescedCallerWaitsNoLongerThanItsDeadline() throws Exception {
+
+        final CountDownLatch leaderCalling = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(dao.getInfo(ID)).thenAnswer(invocation -> {
+            leaderCalling.countDown();
+            release.await();
+            return new Response();
+        });
+        Future<Response> leader = executor.submit(() -> service.getInfo(ID));
+        leaderCalling.await();
+
+        Deadline.set(Deadline.after(100, TimeUnit.MILLISECONDS));
+        try {
+            service.getInfo(ID);
+            fail("Expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            assertEquals("Request deadline exceeded at coalesce", e.getMessage());
+        } finally {
+            release.countDown();
+        }
+        leader.get();
+        verify(dao, times(1)).getInfo(ID);
+    }
+
+    @Test
+    public void callerOutOfTimeDoesNotFailOthersSharingItsCall() throws Exception {
+
+        final Response response = new Response();
+        final CountDownLatch leaderCalling = new CountDownLatch(1);
+        final AtomicInteger daoCalls = new AtomicInteger();
+        when(dao.getInfo(ID)).thenAnswer(invocation -> {
+            if (daoCalls.incrementAndGet() == 1) {
+                leaderCalling.countDown();
+                // Give the other caller time to join, then run out of the leader's time
+                Thread.sleep(300);
+                Deadline.check("dao");
+            }
+            return response;
+        });
+        Future<Response> leader = executor.submit(() -> {
+            Deadline.set(Deadline.after(100, TimeUnit.MILLISECONDS));
+            try {
+                return service.getInfo(ID);
+            } finally {
+                Deadline.set(null);
+            }
+        });
+        leaderCalling.await();
+
+        assertSame(response, service.getInfo(ID));
+        try {
+            leader.get();
+            fail("Expected DeadlineExceededException");
+        } catch (ExecutionException e) {
+            assertEquals("Request deadline exceeded at dao", e.getCause().getMessage());
+        }
+        assertEquals(2, daoCalls.get());
+    }
+
+    private List<Future<Response>> callConcurrently(final CountDownLatch allCalling) {
+        List<Future<Response>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(new Callable<Response>() {
+                @Override
+                public Response call() {
+                    allCalling.countDown();
+                    return service.getInfo(ID);
+                }
+            }));
+        }
+        return results;
+    }
+}
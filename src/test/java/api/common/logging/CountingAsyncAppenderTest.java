@@ -0,0 +1,123 @@
+package api.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CountingAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final Logger logger = context.getLogger(CountingAsyncAppenderTest.class);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch taken = new CountDownLatch(1);
+
+    private final List<ILoggingEvent> delivered = new CopyOnWriteArrayList<>();
+
+    private CountingAsyncAppender appender;
+
+    @Before
+    public void setUp() {
+
+        // Holds up the worker on the first event so that the queue fills behind it
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<ILoggingEvent>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                taken.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.add(event);
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+
+        appender = new CountingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(4);
+        appender.addAppender(slow);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    public void dropsInfoBelowThresholdAndCountsIt() throws Exception {
+
+        appender.setDiscardingThreshold(2);
+        appender.start();
+
+        append(Level.INFO);
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        append(Level.INFO);
+        append(Level.INFO);
+        append(Level.INFO);
+        // One place left, so INFO is dropped while WARN is queued
+        append(Level.INFO);
+        append(Level.WARN);
+
+        assertEquals(1, appender.getLostCount());
+        release.countDown();
+        waitForDelivery(5);
+        assertEquals(Level.WARN, delivered.get(4).getLevel());
+    }
+
+    @Test
+    public void neverBlockDropsWhenFull() throws Exception {
+
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.start();
+
+        append(Level.ERROR);
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 6; i++) {
+            append(Level.ERROR);
+        }
+
+        assertEquals(2, appender.getLostCount());
+        release.countDown();
+        waitForDelivery(5);
+    }
+
+    @Test
+    public void defaultThresholdIsAFifthOfTheQueue() {
+        appender.setQueueSize(100);
+        appender.start();
+        assertEquals(20, appender.getDiscardingThreshold());
+    }
+
+    private void append(Level level) {
+        appender.doAppend(new LoggingEvent(CountingAsyncAppenderTest.class.getName(), logger, level, "message", null, null));
+    }
+
+    private void waitForDelivery(int events) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delivered.size() < events && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(events, delivered.size());
+    }
+}
@@ -0,0 +1,30 @@
+package api.common.logging;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogFileDefinerTest {
+
+    private final String logFile = System.getProperty("LOG_FILE");
+
+    @After
+    public void tearDown() {
+        if (logFile == null) {
+            System.clearProperty("LOG_FILE");
+        } else {
+            System.setProperty("LOG_FILE", logFile);
+        }
+    }
+
+    @Test
+    public void fileOnlyWhenBootHasALogFile() {
+
+        System.clearProperty("LOG_FILE");
+        assertEquals("none", new LogFileDefiner().getPropertyValue());
+
+        System.setProperty("LOG_FILE", "/var/log/api/spring.log");
+        assertEquals("file", new LogFileDefiner().getPropertyValue());
+    }
+}
@@ -0,0 +1,125 @@
+package api.common.metrics;
+
+import api.common.exceptions.ResourceNotFoundException;
+import api.integration.DAO;
+import api.integration.DAOImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ApiMetricsTest {
+
+    private ApiMetrics apiMetrics;
+
+    @Before
+    public void setUp() {
+        apiMetrics = new ApiMetrics();
+    }
+
+    @Test
+    public void timerRecordsDurationsInFlightAndErrors() throws Exception {
+
+        LatencyTimer timer = apiMetrics.timer("dao.getInfo");
+        assertSame(timer, apiMetrics.timer("dao.getInfo"));
+
+        long first = timer.start();
+        Thread.sleep(20);
+        timer.stop(first);
+        timer.stop(timer.start(), new ResourceNotFoundException("missing"));
+        timer.start();
+
+        LatencyTimer.Snapshot snapshot = timer.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(2, snapshot.getWindowCount());
+        assertEquals(1, snapshot.getInFlight());
+        assertTrue(snapshot.getMax() >= 20000000L);
+        assertTrue(snapshot.getP50() <= snapshot.getP99());
+        assertEquals(Long.valueOf(1), snapshot.getErrors().get("ResourceNotFoundException"));
+
+        // Later snapshots keep the totals and the window
+        snapshot = timer.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(2, snapshot.getWindowCount());
+    }
+
+    @Test
+    public void metricsArePublishedByName() {
+
+        LatencyTimer timer = apiMetrics.timer("service.getInfo");
+        timer.stop(timer.start());
+        timer.stop(timer.start(), new IllegalStateException());
+
+        Map<String, Number> metrics = new HashMap<>();
+        for (Metric<?> metric : apiMetrics.metrics()) {
+            metrics.put(metric.getName(), metric.getValue());
+        }
+
+        assertEquals(2L, metrics.get("counter.api.service.getInfo.count"));
+        assertEquals(0L, metrics.get("gauge.api.service.getInfo.in_flight"));
+        assertEquals(1L, metrics.get("counter.api.service.getInfo.errors.IllegalStateException"));
+        assertTrue(metrics.get("gauge.api.service.getInfo.rate").doubleValue() > 0);
+        for (String percentile : new String[]{"p50", "p90", "p99", "p999", "max"}) {
+            assertTrue(percentile, metrics.containsKey("timer.api.service.getInfo." + percentile));
+        }
+    }
+
+    @Test
+    public void interceptorTimesFuturesToCompletion() throws Throwable {
+
+        SettableListenableFuture<String> future = new SettableListenableFuture<>();
+        TimingBeanPostProcessor processor = new TimingBeanPostProcessor(apiMetrics);
+        processor.addLayer("service", TimingBeanPostProcessor.forInterface(Lookup.class));
+        Lookup lookup = (Lookup) processor.postProcessAfterInitialization((Lookup) () -> future, "lookup");
+
+        assertSame(future, lookup.find());
+        assertEquals(1, apiMetrics.timer("service.find").snapshot().getInFlight());
+
+        future.set("found");
+        LatencyTimer.Snapshot snapshot = apiMetrics.timer("service.find").snapshot();
+        assertEquals(0, snapshot.getInFlight());
+        assertEquals(1, snapshot.getCount());
+    }
+
+    @Test
+    public void postProcessorTimesOnlyLayerBeans() {
+
+        TimingBeanPostProcessor processor = new TimingBeanPostProcessor(apiMetrics);
+        processor.addLayer("dao", TimingBeanPostProcessor.forInterface(DAO.class));
+
+        Object other = new Object();
+        assertSame(other, processor.postProcessAfterInitialization(other, "other"));
+
+        DAO dao = (DAO) processor.postProcessAfterInitialization(new DAOImpl(), "dao");
+        assertTrue(AopUtils.isCglibProxy(dao));
+        assertTrue(dao instanceof DAOImpl);
+
+        dao.getInfo("AB1");
+        try {
+            dao.streamInfo("AB1", model -> {
+                throw new IllegalStateException();
+            });
+            fail("Expected the stream to fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(1, apiMetrics.timer("dao.getInfo").snapshot().getCount());
+        LatencyTimer.Snapshot snapshot = apiMetrics.timer("dao.streamInfo").snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(Long.valueOf(1), snapshot.getErrors().get("IllegalStateException"));
+    }
+
+    public interface Lookup {
+        SettableListenableFuture<String> find();
+    }
+}
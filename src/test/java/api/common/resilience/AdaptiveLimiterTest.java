@@ -0,0 +1,76 @@
+package api.common.resilience;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private AdaptiveLimiter limiter;
+
+    @Before
+    public void setup() {
+        // Starts at 20 between 5 and 100, averaging over the last 10 and 100 calls
+        limiter = new AdaptiveLimiter(20, 5, 100, 0.2, 1.5, 10, 100);
+    }
+
+    @Test
+    public void refusesCallsOverTheLimit() {
+
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, limiter.tryAcquire());
+        }
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release();
+        assertEquals(20, limiter.tryAcquire());
+    }
+
+    @Test
+    public void growsWhileLatencyHolds() {
+        sample(100, FAST, 20);
+        assertTrue("limit " + limiter.getLimit(), limiter.getLimit() > 20);
+    }
+
+    @Test
+    public void doesNotGrowWhenLightlyUsed() {
+        sample(100, FAST, 5);
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void shrinksWhenLatencyRises() {
+
+        sample(100, FAST, 20);
+        int grown = limiter.getLimit();
+
+        sample(20, SLOW, 100);
+        assertTrue("limit " + limiter.getLimit(), limiter.getLimit() < grown / 2);
+    }
+
+    @Test
+    public void recoversOnceLatencyFallsBack() {
+
+        sample(100, FAST, 20);
+        sample(100, SLOW, 100);
+        int shrunk = limiter.getLimit();
+
+        sample(200, FAST, 100);
+        assertTrue("limit " + limiter.getLimit(), limiter.getLimit() > shrunk);
+    }
+
+    private void sample(int calls, long rttNanos, int inFlight) {
+        for (int i = 0; i < calls; i++) {
+            limiter.onSample(rttNanos, inFlight);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package api.common.resilience;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setup() {
+        // Opens at 50% failed or 80% slower than 500ms over the last 10 calls, once 5 have been made
+        circuitBreaker = new CircuitBreaker("test", 50, 80, 500, 10, 5, 1000, 2, nanos::get);
+    }
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        record(4, FAST, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(-1f, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void opensOnFailureRate() {
+
+        record(5, FAST, false);
+        record(4, FAST, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        record(1, FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(1, circuitBreaker.getNotPermittedCalls());
+    }
+
+    @Test
+    public void opensOnSlowCallRate() {
+        record(4, SLOW, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        record(1, SLOW, false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void oldestCallsLeaveTheWindow() {
+        record(2, FAST, true);
+        record(10, FAST, false);
+        assertEquals(0f, circuitBreaker.getFailureRate(), 0);
+        assertEquals(10, circuitBreaker.getBufferedCalls());
+    }
+
+    @Test
+    public void halfOpenClosesWhenTrialCallsSucceed() {
+
+        record(5, FAST, true);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onResult(FAST, false);
+        circuitBreaker.onResult(FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getBufferedCalls());
+    }
+
+    @Test
+    public void halfOpenReopensWhenTrialCallsFail() {
+
+        record(5, FAST, true);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        record(1, FAST, false);
+        record(1, FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private void record(int calls, long durationNanos, boolean failed) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onResult(durationNanos, failed);
+        }
+    }
+}
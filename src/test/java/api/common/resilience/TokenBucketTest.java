@@ -0,0 +1,56 @@
+package api.common.resilience;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private TokenBucket tokenBucket;
+
+    @Before
+    public void setup() {
+        // Bursts of 3, then one call every 100ms
+        tokenBucket = new TokenBucket(3, 10, nanos::get);
+    }
+
+    @Test
+    public void allowsTheBurstAtOnce() {
+        assertEquals(3, tokenBucket.getAvailable());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, tokenBucket.tryAcquire());
+        }
+        assertEquals(0, tokenBucket.getAvailable());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.tryAcquire());
+    }
+
+    @Test
+    public void refillsAtTheSetRate() {
+
+        for (int i = 0; i < 3; i++) {
+            tokenBucket.tryAcquire();
+        }
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40), tokenBucket.tryAcquire());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(0, tokenBucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.tryAcquire());
+    }
+
+    @Test
+    public void refillsNoFurtherThanTheBurst() {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertEquals(3, tokenBucket.getAvailable());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, tokenBucket.tryAcquire());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.tryAcquire());
+    }
+}
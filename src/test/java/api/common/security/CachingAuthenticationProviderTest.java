@@ -0,0 +1,86 @@
+package api.common.security;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachingAuthenticationProviderTest {
+
+    private AuthenticationProvider delegate;
+
+    private CachingAuthenticationProvider provider;
+
+    @Before
+    public void setup() {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(new Properties());
+        users.createUser(User.withUsername("user").password("password").roles("USER").build());
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider();
+        daoProvider.setUserDetailsService(users);
+        delegate = spy(daoProvider);
+        provider = new CachingAuthenticationProvider(delegate, 100, 60);
+    }
+
+    @Test
+    public void verifiedCredentialsAreCheckedOnce() {
+
+        Authentication first = provider.authenticate(token("user", "password"));
+        Authentication second = provider.authenticate(token("user", "password"));
+
+        verify(delegate, times(1)).authenticate(any(Authentication.class));
+        assertTrue(second.isAuthenticated());
+        assertEquals("user", second.getName());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER"), second.getAuthorities());
+        assertNull(second.getCredentials());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void wrongPasswordIsNotAcceptedOrCached() {
+
+        provider.authenticate(token("user", "password"));
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.authenticate(token("user", "wrong"));
+                fail("Expected BadCredentialsException");
+            } catch (BadCredentialsException e) {
+                // expected
+            }
+        }
+        verify(delegate, times(3)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void detailsAreThoseOfTheRequest() {
+
+        UsernamePasswordAuthenticationToken request = token("user", "password");
+        request.setDetails("first");
+        provider.authenticate(request);
+
+        request = token("user", "password");
+        request.setDetails("second");
+        assertEquals("second", provider.authenticate(request).getDetails());
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+}
@@ -0,0 +1,162 @@
+package api.common.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class AppClockTest {
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        System.clearProperty(AppClock.SESSION_DATE_JVM_ARG);
+        AppClock.setDefault(null);
+    }
+
+    @Test
+    public void sessionDateIsFixed() throws Exception {
+
+        MutableClock source = new MutableClock(1500000000000L);
+        AppClock clock = new AppClock(source, "01-01-2016");
+        long expected = new SimpleDateFormat("dd-MM-yyyy").parse("01-01-2016").getTime();
+
+        source.advance(86400000L);
+        clock.tick();
+
+        assertEquals(expected, clock.millis());
+        assertEquals(expected, clock.coarseMillis());
+        assertEquals(expected, clock.currentDate().getTime());
+        assertEquals(2016, clock.currentTaxYear());
+    }
+
+    @Test
+    public void invalidSessionDateUsesSource() {
+
+        MutableClock source = new MutableClock(1500000000000L);
+        AppClock clock = new AppClock(source, "not a date");
+
+        assertEquals(1500000000000L, clock.millis());
+        source.advance(5);
+        assertEquals(1500000000005L, clock.millis());
+    }
+
+    @Test
+    public void coarseTimeMovesOnTick() {
+
+        MutableClock source = new MutableClock(1500000000000L);
+        AppClock clock = new AppClock(source, null);
+
+        // Not ticking, so reads the source
+        source.advance(10);
+        assertEquals(1500000000010L, clock.coarseMillis());
+
+        clock.start(60000);
+        try {
+            source.advance(10);
+            assertEquals(1500000000010L, clock.coarseMillis());
+            assertEquals(1500000000020L, clock.millis());
+            clock.tick();
+            assertEquals(1500000000020L, clock.coarseMillis());
+        } finally {
+            clock.stop();
+        }
+    }
+
+    @Test
+    public void taxYearChangesAtBoundary() throws Exception {
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/London"));
+        long boundary = new SimpleDateFormat("dd-MM-yyyy").parse("05-04-2015").getTime();
+        MutableClock source = new MutableClock(boundary - 1);
+        AppClock clock = new AppClock(source, null);
+
+        assertEquals(2015, clock.currentTaxYear());
+        source.advance(1);
+        assertEquals("2015", clock.currentTaxYearName());
+        source.advance(1);
+        assertEquals(2016, clock.currentTaxYear());
+        assertEquals("2016", clock.currentTaxYearName());
+        source.advance(366L * 86400000L);
+        assertEquals(2017, clock.currentTaxYear());
+        // Going back, as a test or corrected system clock might
+        source.advance(-400L * 86400000L);
+        assertEquals(2015, clock.currentTaxYear());
+    }
+
+    @Test
+    public void defaultFollowsSessionDateAndZone() {
+
+        System.setProperty(AppClock.SESSION_DATE_JVM_ARG, "01-01-2016");
+        AppClock clock = AppClock.getDefault();
+        assertSame(clock, AppClock.getDefault());
+
+        System.setProperty(AppClock.SESSION_DATE_JVM_ARG, "01-06-2016");
+        AppClock changed = AppClock.getDefault();
+        assertNotSame(clock, changed);
+        assertEquals("2017", changed.currentTaxYearName());
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        assertNotSame(changed, AppClock.getDefault());
+    }
+
+    @Test
+    public void installedDefaultIsKeptThroughChanges() {
+
+        AppClock installed = new AppClock(Clock.systemDefaultZone(), "01-01-2016");
+        AppClock.setDefault(installed);
+
+        System.setProperty(AppClock.SESSION_DATE_JVM_ARG, "01-06-2016");
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        assertSame(installed, AppClock.getDefault());
+
+        AppClock.setDefault(null);
+        assertNotSame(installed, AppClock.getDefault());
+    }
+
+    /**
+     * Clock whose time is moved on by the test
+     */
+    private static class MutableClock extends Clock {
+
+        private long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package api.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+    private static final int IDS = 100000;
+
+    @Test
+    public void everyIdPutIsFound() {
+
+        BloomFilter filter = new BloomFilter(IDS, 0.01);
+        for (int i = 0; i < IDS; i++) {
+            filter.put("AB" + i);
+        }
+        for (int i = 0; i < IDS; i++) {
+            assertTrue(filter.mightContain("AB" + i));
+        }
+        assertEquals(IDS, filter.getInsertions());
+    }
+
+    @Test
+    public void falsePositiveRateIsNearTheOneRequested() {
+
+        BloomFilter filter = new BloomFilter(IDS, 0.01);
+        for (int i = 0; i < IDS; i++) {
+            filter.put("AB" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (filter.mightContain("ZZ" + i)) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / IDS;
+        assertTrue("observed " + observed, observed < 0.015);
+        assertTrue("expected " + filter.expectedFalsePositiveRate(), Math.abs(filter.expectedFalsePositiveRate() - 0.01) < 0.002);
+    }
+
+    @Test
+    public void overfilledFilterReportsAHigherRate() {
+
+        BloomFilter filter = new BloomFilter(IDS / 10, 0.01);
+        for (int i = 0; i < IDS; i++) {
+            filter.put("AB" + i);
+        }
+        assertTrue(filter.expectedFalsePositiveRate() > 0.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void falsePositiveRateMustBeAFraction() {
+        new BloomFilter(IDS, 1);
+    }
+}
@@ -0,0 +1,160 @@
+package api.common.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks DateEngine gives the same answers as SimpleDateFormat, in time zones with daylight saving at midnight,
+ * half hour daylight saving and no daylight saving.
+ */
+public class DateEngineTest {
+
+    private static final String[] ZONES = {"UTC", "Europe/London", "America/Sao_Paulo", "Australia/Lord_Howe",
+            "Asia/Kolkata"};
+
+    private static final String[] PATTERNS = {"dd-MM-yyyy", "dd/MM/yyyy HH:mm:ss", "yyyy-MM-dd'T'HH:mm", "yyyyMMdd",
+            "d-M-y", "dd-MM-yyyy.SSS", "MM-dd-yyyy", "dd-MMM-yyyy"};
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void parseMatchesSimpleDateFormat() {
+
+        List<String> texts = texts();
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for (String pattern : PATTERNS) {
+                for (String text : texts) {
+                    String context = zone + " " + pattern + " [" + text + "]";
+                    assertEquals(context, legacyParse(text, pattern, false) != null, DateEngine.isValid(text, pattern));
+
+                    Date expected = legacyParse(text, pattern, true);
+                    try {
+                        long actual = DateEngine.parse(text, pattern);
+                        assertTrue(context + " should not parse", expected != null);
+                        assertEquals(context, expected.getTime(), actual);
+                    } catch (ParseException e) {
+                        assertTrue(context + " should parse", expected == null);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void formatAndTaxYearMatchSimpleDateFormat() {
+
+        long start = legacyParse("01-01-1590", "dd-MM-yyyy", true).getTime();
+        long end = legacyParse("01-01-2040", "dd-MM-yyyy", true).getTime();
+        // An irregular step so that every time of day is visited
+        long step = 157 * 3600000L + 7 * 60000L + 13 * 1000L + 17;
+
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for (long time = start; time < end; time += step) {
+                assertEquals(zone + " " + time, new SimpleDateFormat("dd/MM/yyyy HH:mm:ss.SSS").format(new Date(time)),
+                        DateEngine.format(time, "dd/MM/yyyy HH:mm:ss.SSS"));
+                assertEquals(zone + " " + time, legacyTaxYear(time), DateEngine.taxYear(time));
+            }
+        }
+    }
+
+    @Test
+    public void taxYearBoundaryMatchesSimpleDateFormat() {
+
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for (int year = 1595; year < 2040; year++) {
+                long boundary = legacyParse("05-04-" + year, "dd-MM-yyyy", true).getTime();
+                for (long time : new long[]{boundary - 3600000L, boundary - 1, boundary, boundary + 1, boundary + 3600000L}) {
+                    assertEquals(zone + " " + time, legacyTaxYear(time), DateEngine.taxYear(time));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void invalidPattern() {
+        try {
+            DateEngine.isValid("01-01-2000", "dd-jj-yyyy");
+            fail("invalid pattern accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        // The pattern is remembered as invalid
+        try {
+            DateEngine.format(0, "dd-jj-yyyy");
+            fail("invalid pattern accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void patternsAreCompiledOnce() {
+        assertTrue(DateEngine.compile("dd-MM-yyyy") == DateEngine.compile("dd-MM-yyyy"));
+        assertFalse(DateEngine.compile("dd-MM-yyyy").formatter == null);
+        assertTrue(DateEngine.compile("yyyyMMdd").formatter == null);
+    }
+
+    private static List<String> texts() {
+
+        List<String> texts = new ArrayList<>();
+        String[] days = {"0", "1", "01", "05", "28", "29", "30", "31", "32", "40", "001", "123456789", "1234567890"};
+        String[] months = {"0", "1", "02", "04", "12", "13", "25"};
+        String[] years = {"199", "1599", "1600", "1900", "2000", "2015", "2016", "9999", "19999", "99999", "100000"};
+        for (String day : days) {
+            for (String month : months) {
+                for (String year : years) {
+                    texts.add(day + "-" + month + "-" + year);
+                }
+            }
+        }
+        String[] others = {"", "-", "01-01-2000abc", "01-01-2000 ", " 01-01-2000", "01- 01-2000", "01 -01-2000",
+                "-1-01-2000", "01--1-2000", "+1-01-2000", "01-01.2-19999", "01/01/1999", "ab-cd-efgh", "01-01-",
+                "01-01", "1e1-01-2000", "٠١-٠١-٢٠٠٠", "01-01-2000.5", "01-01-2000.005", "29-02-2015", "29-02-2016",
+                "31/12/1999 23:59:59", "31/12/1999 24:00:00", "01/01/2000 00:60:00", "2000-01-01T25:61",
+                "2016-03-27T01:30", "2016-10-30T01:30", "20000101", "2000-02-30T00:00", "12-31-2000", "01-Jan-2000"};
+        for (String other : others) {
+            texts.add(other);
+        }
+        return texts;
+    }
+
+    private static Date legacyParse(String text, String pattern, boolean lenient) {
+        SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+        sdf.setLenient(lenient);
+        ParsePosition position = new ParsePosition(0);
+        Date date = sdf.parse(text, position);
+        return position.getIndex() == 0 ? null : date;
+    }
+
+    /**
+     * The tax year calculation DateUtils made before DateEngine
+     */
+    private static int legacyTaxYear(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        int year = cal.get(Calendar.YEAR);
+        return time > legacyParse("05-04-" + year, "dd-MM-yyyy", true).getTime() ? year + 1 : year;
+    }
+}
@@ -0,0 +1,58 @@
+package api.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class InternerTest {
+
+    @Test
+    public void equalValuesShareOneInstance() {
+
+        Interner interner = new Interner();
+        String first = new String("SW1A 1AA");
+        String second = new String("SW1A 1AA");
+        assertNotSame(first, second);
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void nullIsReturnedAsItIs() {
+
+        Interner interner = new Interner();
+        assertNull(interner.intern(null));
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void poolStopsGrowingAtItsMaximumSize() {
+
+        Interner interner = new Interner(3);
+        for (int i = 0; i < 10; i++) {
+            interner.intern("line " + i);
+        }
+        assertEquals(3, interner.size());
+    }
+
+    @Test
+    public void fullPoolReturnsNewValuesAndKeepsSharingPooledOnes() {
+
+        Interner interner = new Interner(2);
+        String pooled = interner.intern(new String("line 1"));
+        interner.intern(new String("line 2"));
+
+        String first = new String("line 3");
+        String second = new String("line 3");
+        assertSame(first, interner.intern(first));
+        assertSame(second, interner.intern(second));
+
+        assertSame(pooled, interner.intern(new String("line 1")));
+        assertEquals(2, interner.size());
+    }
+}
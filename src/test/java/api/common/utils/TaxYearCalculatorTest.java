@@ -0,0 +1,115 @@
+package api.common.utils;
+
+import api.common.exceptions.InternalServerErrorException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TaxYearCalculatorTest {
+
+    private static final String[] ZONES = {"UTC", "Europe/London", "America/Sao_Paulo", "Australia/Lord_Howe"};
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void boundariesMatchGetTaxYear() throws Exception {
+
+        TaxYearCalculator calculator;
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            calculator = new TaxYearCalculator(1950, 2050);
+            // Either side of the table as well as within it
+            for (int year = 1940; year < 2060; year++) {
+                long boundary = new SimpleDateFormat("dd-MM-yyyy").parse("05-04-" + year).getTime();
+                for (long time : new long[]{boundary - 86400000L, boundary - 1, boundary, boundary + 1,
+                        boundary + 86400000L, legacyStartOfYear(year), legacyStartOfYear(year) - 1}) {
+                    assertEquals(zone + " " + time, legacyTaxYear(time), calculator.taxYear(time));
+                    assertEquals(zone + " " + time, String.valueOf(legacyTaxYear(time)), calculator.taxYearName(time));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batchMatchesSingleLookups() {
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/London"));
+        TaxYearCalculator calculator = new TaxYearCalculator(1990, 2030);
+
+        // Ascending, descending and out of range instants, with repeats
+        long[] times = new long[2000];
+        long day = 86400000L;
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i < 1000 ? 631152000000L + i * 7 * day + i : 2524608000000L - (i - 1000) * 17 * day;
+        }
+        times[10] = -5000000000000L;
+        times[11] = times[12];
+
+        int[] expected = new int[times.length];
+        Date[] dates = new Date[times.length];
+        for (int i = 0; i < times.length; i++) {
+            expected[i] = legacyTaxYear(times[i]);
+            dates[i] = new Date(times[i]);
+        }
+
+        assertArrayEquals(expected, calculator.taxYears(times));
+        assertArrayEquals(expected, calculator.taxYears(dates));
+        assertArrayEquals(expected, DateUtils.getTaxYears(times));
+    }
+
+    @Test(expected = InternalServerErrorException.class)
+    public void batchRejectsNullDate() {
+        new TaxYearCalculator(1990, 2030).taxYears(new Date[]{new Date(), null});
+    }
+
+    @Test
+    public void sharedTableFollowsDefaultZone() {
+
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        TaxYearCalculator utc = TaxYearCalculator.getInstance();
+        assertSame(utc, TaxYearCalculator.getInstance());
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        TaxYearCalculator tokyo = TaxYearCalculator.getInstance();
+        assertNotSame(utc, tokyo);
+
+        // 2015-04-04T15:00:00.001Z is just after midnight on 5th April in Tokyo
+        assertEquals(2016, tokyo.taxYear(1428159600001L));
+        assertEquals(2015, tokyo.taxYear(1428159600000L));
+    }
+
+    private static long legacyStartOfYear(int year) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, Calendar.JANUARY, 1);
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * The tax year calculation DateUtils made before the table
+     */
+    private static int legacyTaxYear(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        int year = cal.get(Calendar.YEAR);
+        try {
+            return time > new SimpleDateFormat("dd-MM-yyyy").parse("05-04-" + year).getTime() ? year + 1 : year;
+        } catch (java.text.ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package api.integration;
+
+import api.business.model.Model;
+import api.business.model.Response;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs HttpDAOImpl against an embedded stand-in for the upstream service.
+ */
+public class HttpDAOImplTest {
+
+    private static final String ROW = "{\"name\":\"name\",\"address_line_1\":\"al1\",\"address_line_2\":\"al2\","
+            + "\"address_line_3\":\"al3\",\"address_line_4\":\"al4\",\"address_line_5\":null,\"postcode\":\"pc\","
+            + "\"unexpected\":{\"nested\":[1,2]}}";
+
+    private HttpServer server;
+
+    private HttpDAOImpl dao;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private volatile String lastRequestBody;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/info", this::handle);
+        server.start();
+
+        dao = new HttpDAOImpl("http://localhost:" + server.getAddress().getPort() + "/api/",
+                10, 10, 1000, 1000, 500, 30000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        dao.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void getInfoParsesRows() {
+
+        Response response = dao.getInfo("AB123456");
+
+        assertEquals(2, response.getModels().size());
+        Model model = response.getModels().get(0);
+        assertEquals("name", model.getName());
+        assertEquals("al4", model.getAddress_line_4());
+        assertNull(model.getAddress_line_5());
+        assertEquals("pc", model.getPostcode());
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void getInfoNotFound() {
+        dao.getInfo("NF1");
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void getInfoNoRows() {
+        dao.getInfo("EM1");
+    }
+
+    @Test(expected = ServiceUnavailableException.class)
+    public void getInfoUpstreamError() {
+        dao.getInfo("ER1");
+    }
+
+    @Test(expected = ServiceUnavailableException.class)
+    public void getInfoMalformedBody() {
+        dao.getInfo("BD1");
+    }
+
+    @Test
+    public void connectionIsReused() {
+
+        for (int i = 0; i < 5; i++) {
+            dao.getInfo("AB" + i);
+        }
+        // A not found answer must not cost the pooled connection either
+        try {
+            dao.getInfo("NF1");
+        } catch (ResourceNotFoundException expected) {
+            // expected
+        }
+        dao.getInfo("AB9");
+
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void getInfoBatchIsOneRequest() {
+
+        Map<String, Response> responses = dao.getInfoBatch(Arrays.asList("AB1", "NF1", "AB2"));
+
+        assertEquals("{\"ids\":[\"AB1\",\"NF1\",\"AB2\"]}", lastRequestBody);
+        assertEquals(2, responses.size());
+        assertEquals(2, responses.get("AB1").getModels().size());
+        assertTrue(!responses.containsKey("NF1"));
+    }
+
+    @Test
+    public void streamInfoPassesRowsOn() {
+
+        List<Model> rows = new ArrayList<>();
+        dao.streamInfo("AB123456", rows::add);
+
+        assertEquals(2, rows.size());
+        assertEquals("pc", rows.get(1).getPostcode());
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void streamInfoNoRows() {
+        dao.streamInfo("EM1", model -> fail("no rows expected"));
+    }
+
+    @Test
+    public void streamInfoAbandonedByConsumerDropsConnection() {
+
+        List<Model> rows = new ArrayList<>();
+        try {
+            dao.streamInfo("LG1", model -> {
+                rows.add(model);
+                throw new IllegalStateException("consumer gone");
+            });
+            fail("consumer failure expected");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        // The rest of the large body is not read, the next call uses a new connection
+        dao.getInfo("AB1");
+
+        assertEquals(1, rows.size());
+        assertEquals(2, clientPorts.size());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        try (InputStream in = exchange.getRequestBody()) {
+            Scanner scanner = new Scanner(in, "UTF-8").useDelimiter("\\A");
+            lastRequestBody = scanner.hasNext() ? scanner.next() : "";
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        int status = 200;
+        String body;
+
+        if (path.endsWith("/batch")) {
+            body = "{\"results\":{\"AB1\":{\"models\":[" + ROW + "," + ROW + "]},\"NF1\":{\"models\":[]},"
+                    + "\"AB2\":{\"models\":[" + ROW + "]}},\"errors\":{}}";
+        } else if (query.endsWith("NF1")) {
+            status = 404;
+            body = "{\"message\":\"not found\"}";
+        } else if (query.endsWith("EM1")) {
+            body = "{\"models\":[]}";
+        } else if (query.endsWith("ER1")) {
+            status = 500;
+            body = "{\"message\":\"failed\"}";
+        } else if (query.endsWith("LG1")) {
+            StringBuilder rows = new StringBuilder("{\"models\":[").append(ROW);
+            for (int i = 0; i < 10000; i++) {
+                rows.append(',').append(ROW);
+            }
+            body = rows.append("]}").toString();
+        } else if (query.endsWith("BD1")) {
+            body = "[\"not\",\"a\",\"response\"]";
+        } else {
+            body = "{\"models\":[" + ROW + "," + ROW + "]}";
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package api.integration;
+
+import api.business.model.Response;
+import api.common.exceptions.ResourceNotFoundException;
+import api.presentation.ApiMediaTypes;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the JDBC DAO against the embedded H2 database from the h2 profile.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public class JdbcDAOImplIT {
+
+    @Autowired
+    private DAO dao;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void jdbcDaoIsSelected() {
+        assertTrue(dao instanceof JdbcDAOImpl);
+    }
+
+    @Test
+    public void getInfoMapsAllRows() {
+
+        Response response = dao.getInfo("AB2");
+
+        assertEquals(2, response.getModels().size());
+        assertEquals("name", response.getModels().get(0).getName());
+        assertNull(response.getModels().get(0).getAddress_line_5());
+        assertEquals("pc2", response.getModels().get(1).getPostcode());
+    }
+
+    @Test
+    public void forEachIdListsEachIdOnce() {
+
+        List<String> ids = new ArrayList<>();
+        assertTrue(dao.forEachId(ids::add));
+
+        Collections.sort(ids);
+        assertEquals(Arrays.asList("AB1", "AB2", "AB3"), ids);
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void getInfoNotFound() {
+        dao.getInfo("ZZ999");
+    }
+
+    @Test
+    public void getInfoBatchOmitsMissingIds() {
+
+        Map<String, Response> responses = dao.getInfoBatch(Arrays.asList("AB1", "AB2", "ZZ999"));
+
+        assertEquals(2, responses.size());
+        assertEquals(1, responses.get("AB1").getModels().size());
+        assertEquals(2, responses.get("AB2").getModels().size());
+        assertFalse(responses.containsKey("ZZ999"));
+    }
+
+    @Test
+    public void endpointReadsFromDatabase() {
+
+        ResponseEntity<Response> response = restTemplate.withBasicAuth("user", "password")
+                .getForEntity("/api/info?id=AB3", Response.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("cl5", response.getBody().getModels().get(0).getAddress_line_5());
+    }
+
+    @Test
+    public void endpointStreamsFromDatabase() {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(ApiMediaTypes.APPLICATION_NDJSON));
+        ResponseEntity<String> response = restTemplate.withBasicAuth("user", "password")
+                .exchange("/api/info?id=AB2", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().split("\n").length);
+    }
+}
@@ -0,0 +1,48 @@
+package api.presentation;
+
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    public void correlationIdIsInMdcForTheRequestOnly() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/info");
+        request.addHeader(CorrelationIdFilter.HEADER, "abc-123");
+
+        assertEquals("abc-123", correlationIdSeenBy(request));
+        assertNull(MDC.get(CorrelationIdFilter.MDC_KEY));
+    }
+
+    @Test
+    public void missingCorrelationIdIsUndefined() throws Exception {
+        assertEquals("undefined", correlationIdSeenBy(new MockHttpServletRequest("GET", "/api/info")));
+    }
+
+    private String correlationIdSeenBy(MockHttpServletRequest request) throws Exception {
+
+        final AtomicReference<String> seen = new AtomicReference<>();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                seen.set(MDC.get(CorrelationIdFilter.MDC_KEY));
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet));
+        return seen.get();
+    }
+}
@@ -0,0 +1,63 @@
+package api.presentation;
+
+import api.common.utils.Deadline;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineFilterTest {
+
+    private final DeadlineFilter filter = new DeadlineFilter();
+
+    @Test
+    public void requestTimeoutSetsTheDeadlineForTheRequestOnly() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/info");
+        request.addHeader(DeadlineFilter.HEADER, "500");
+
+        long remaining = remainingMillisSeenBy(request);
+        assertTrue("remaining " + remaining, remaining > 400 && remaining <= 500);
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void missingOrInvalidTimeoutGetsTheDefault() throws Exception {
+
+        assertTrue(remainingMillisSeenBy(new MockHttpServletRequest("GET", "/api/info")) > 9000);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/info");
+        request.addHeader(DeadlineFilter.HEADER, "soon");
+        assertTrue(remainingMillisSeenBy(request) > 9000);
+    }
+
+    @Test
+    public void timeoutIsCappedAtTheMaximum() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/info");
+        request.addHeader(DeadlineFilter.HEADER, "3600000");
+
+        assertTrue(remainingMillisSeenBy(request) <= 60000);
+    }
+
+    private long remainingMillisSeenBy(MockHttpServletRequest request) throws Exception {
+
+        final AtomicReference<Deadline> seen = new AtomicReference<>();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                seen.set(Deadline.current());
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet));
+        return seen.get().remainingMillis();
+    }
+}
@@ -0,0 +1,134 @@
+package api.presentation;
+
+import api.JacksonConfig;
+import api.common.exceptions.BadRequestException;
+import api.common.exceptions.DeadlineExceededException;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LoggingResponseEntityExceptionHandlerTest {
+
+    private final LoggingResponseEntityExceptionHandler handler = new LoggingResponseEntityExceptionHandler();
+
+    private final ObjectMapper objectMapper = new JacksonConfig().jacksonBuilder().build();
+
+    @Test
+    public void clientErrorBodyKeepsItsShape() throws Exception {
+
+        MockHttpServletRequest request = request("application/json");
+        request.addHeader("CorrelationId", "abc");
+
+        ResponseEntity<Object> response = handle(BadRequestException.withoutStackTrace("Bad id"), request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("abc", response.getHeaders().getFirst("CorrelationId"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> body = objectMapper.readValue(objectMapper.writeValueAsBytes(response.getBody()), Map.class);
+        assertEquals(Arrays.asList("correlationId", "timestamp", "status", "error", "exception", "message", "path"),
+                new ArrayList<>(body.keySet()));
+        assertEquals("abc", body.get("correlationId"));
+        assertTrue(body.get("timestamp") instanceof Long);
+        assertEquals(400, body.get("status"));
+        assertEquals("Bad Request", body.get("error"));
+        assertEquals(BadRequestException.class.getName(), body.get("exception"));
+        assertEquals("Bad id", body.get("message"));
+        assertEquals("/api/info", body.get("path"));
+    }
+
+    @Test
+    public void causeIsReportedAndNullMessageKept() throws Exception {
+
+        ResponseEntity<Object> response = handle(new ServiceUnavailableException(new IllegalStateException()), request(null));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNull(response.getHeaders().getContentType());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> body = objectMapper.readValue(objectMapper.writeValueAsBytes(response.getBody()), Map.class);
+        assertEquals(IllegalStateException.class.getName(), body.get("exception"));
+        assertTrue(body.containsKey("message"));
+        assertNull(body.get("message"));
+        assertEquals("undefined", body.get("correlationId"));
+    }
+
+    @Test
+    public void contentTypeIsTheLastSupportedAcceptedType() {
+
+        String accept = "application/x-jackson-smile, text/html, application/cbor";
+        // The second request is answered from the cache and must agree with the first
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<Object> response = handle(ResourceNotFoundException.withoutStackTrace("none"), request(accept));
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+            assertEquals(ApiMediaTypes.APPLICATION_CBOR, response.getHeaders().getContentType());
+        }
+        assertNull(handle(BadRequestException.withoutStackTrace("x"), request("text/html"))
+                .getHeaders().getContentType());
+        assertNull(handle(BadRequestException.withoutStackTrace("x"), request("not a media type"))
+                .getHeaders().getContentType());
+    }
+
+    @Test
+    public void statusesAreResolvedFromAnnotations() {
+        assertEquals(HttpStatus.BAD_REQUEST, ExceptionStatuses.of(BadRequestException.class));
+        assertEquals(HttpStatus.NOT_FOUND, ExceptionStatuses.of(ResourceNotFoundException.class));
+        assertNull(ExceptionStatuses.of(IllegalStateException.class));
+    }
+
+    @Test
+    public void expectedClientErrorsHaveNoStackTrace() {
+        assertEquals(0, BadRequestException.withoutStackTrace("x").getStackTrace().length);
+        assertEquals(0, ResourceNotFoundException.withoutStackTrace("x").getStackTrace().length);
+        assertEquals("x", ResourceNotFoundException.withoutStackTrace("x").getMessage());
+    }
+
+    @Test
+    public void refusalsAreCountedRatherThanLoggedAsErrors() {
+
+        handle(ServiceUnavailableException.refused("Too many requests in progress"), request(null));
+        handle(ServiceUnavailableException.refused("Backend unavailable, calls are suspended"), request(null));
+        handle(DeadlineExceededException.withoutStackTrace("Request deadline exceeded at service"), request(null));
+        // A failure of the backend or a timeout is unexpected and not counted as a refusal
+        handle(new ServiceUnavailableException("Unable to retrieve data", new IllegalStateException()), request(null));
+        handle(ServiceUnavailableException.withoutStackTrace("Request not completed within 100 milliSeconds"),
+                request(null));
+
+        Map<String, Object> metrics = new HashMap<>();
+        for (Metric<?> metric : handler.metrics()) {
+            metrics.put(metric.getName(), metric.getValue());
+        }
+        assertEquals(2, metrics.size());
+        assertEquals(2L, metrics.get("counter.errors.refused.ServiceUnavailableException"));
+        assertEquals(1L, metrics.get("counter.errors.refused.DeadlineExceededException"));
+    }
+
+    private ResponseEntity<Object> handle(Exception ex, MockHttpServletRequest request) {
+        return handler.handle(ex, new ServletWebRequest(request), request);
+    }
+
+    private static MockHttpServletRequest request(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/info");
+        request.setServletPath("/api/info");
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        return request;
+    }
+}
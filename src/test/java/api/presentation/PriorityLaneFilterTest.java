@@ -0,0 +1,161 @@
+package api.presentation;
+
+import api.JacksonConfig;
+import api.common.metrics.ApiMetrics;
+import api.common.resilience.Bulkhead;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PriorityLaneFilterTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().jacksonBuilder().build();
+
+    private ApiMetrics apiMetrics;
+
+    private PriorityLaneFilter filter;
+
+    @Before
+    public void setup() {
+        apiMetrics = new ApiMetrics();
+        // One request in progress in each lane and none waiting; only the user lane refuses when full
+        filter = new PriorityLaneFilter(objectMapper, true,
+                new PriorityLaneFilter.Lane("user", new Bulkhead(1, 0, 0), true, apiMetrics),
+                new PriorityLaneFilter.Lane("admin", new Bulkhead(1, 0, 0), false, apiMetrics),
+                new PriorityLaneFilter.Lane("actuator", new Bulkhead(1, 0, 0), false, apiMetrics));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void fullUserLaneRefusesUsersButNotAdminsOrActuator() throws Exception {
+
+        final List<Integer> statuses = new ArrayList<>();
+        final List<MockHttpServletResponse> refused = new ArrayList<>();
+        authenticate("user", "ROLE_USER");
+
+        // While a user request holds the user lane
+        run(request("/api/info"), () -> {
+            MockHttpServletResponse response = run(request("/api/info"), null);
+            statuses.add(response.getStatus());
+            refused.add(response);
+
+            authenticate("admin", "ROLE_ADMIN", "ROLE_USER");
+            statuses.add(run(request("/api/info"), null).getStatus());
+            statuses.add(run(request("/health"), null).getStatus());
+        });
+
+        assertEquals(503, (int) statuses.get(0));
+        assertEquals(200, (int) statuses.get(1));
+        assertEquals(200, (int) statuses.get(2));
+
+        MockHttpServletResponse response = refused.get(0);
+        assertEquals("corr-1", response.getHeader(CorrelationIdFilter.HEADER));
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString(), response.getContentAsString().contains("\"correlationId\":\"corr-1\""));
+        assertTrue(response.getContentAsString().contains("Too many user requests in progress"));
+
+        assertEquals(1L, metric("counter.lane.user.rejected"));
+        assertEquals(1L, metric("counter.api.lane.user.queue_wait.errors.ServiceUnavailableException"));
+        assertEquals(0, metric("gauge.lane.user.in_use"));
+    }
+
+    @Test
+    public void fullLaneThatDoesNotRefuseLetsRequestsThrough() throws Exception {
+
+        final List<Integer> statuses = new ArrayList<>();
+        authenticate("admin", "ROLE_ADMIN", "ROLE_USER");
+
+        run(request("/api/info"), () -> {
+            assertEquals(1, metric("gauge.lane.admin.in_use"));
+            assertEquals(1.0, metric("gauge.lane.admin.utilisation"));
+            statuses.add(run(request("/api/info"), null).getStatus());
+        });
+
+        assertEquals(200, (int) statuses.get(0));
+        assertEquals(1L, metric("counter.lane.admin.overflow"));
+        assertEquals(0L, metric("counter.lane.admin.rejected"));
+        assertEquals(2L, metric("counter.api.lane.admin.queue_wait.count"));
+    }
+
+    @Test
+    public void fullLaneThatDoesNotRefuseDoesNotMakeRequestsWait() throws Exception {
+
+        // An admin lane of one request, configured with a wait that only applies to lanes that refuse
+        filter = new PriorityLaneFilter(apiMetrics, objectMapper, true, 1, 0, 0, true, 1, 10, 1000, false, 1, 10, 1000, false);
+        final List<Long> elapsed = new ArrayList<>();
+        authenticate("admin", "ROLE_ADMIN", "ROLE_USER");
+
+        run(request("/api/info"), () -> {
+            long start = System.nanoTime();
+            assertEquals(200, run(request("/api/info"), null).getStatus());
+            elapsed.add(System.nanoTime() - start);
+        });
+
+        assertTrue(elapsed.get(0) < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(1L, metric("counter.lane.admin.overflow"));
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, final Runnable whileInProgress) {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                if (whileInProgress != null) {
+                    whileInProgress.run();
+                }
+            }
+        };
+        try {
+            filter.doFilter(request, response, new MockFilterChain(servlet));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader(CorrelationIdFilter.HEADER, "corr-1");
+        return request;
+    }
+
+    private static void authenticate(String name, String... roles) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                name, "password", AuthorityUtils.createAuthorityList(roles)));
+    }
+
+    private Object metric(String name) {
+        List<Metric<?>> metrics = new ArrayList<>(filter.metrics());
+        metrics.addAll(apiMetrics.metrics());
+        for (Metric<?> metric : metrics) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue();
+            }
+        }
+        throw new AssertionError("No metric " + name);
+    }
+}
@@ -0,0 +1,89 @@
+package api.presentation;
+
+import api.common.exceptions.TooManyRequestsException;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimitInterceptorTest {
+
+    // Bursts of 2, refilled far slower than the test runs
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(true, 2, 0.01, true, 100, 600);
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void callerOverTheLimitIsRefusedWithRetryAfter() throws Exception {
+
+        authenticate("user", "ROLE_USER");
+        assertTrue(interceptor.preHandle(request("/api/info"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("/api/info"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            interceptor.preHandle(request("/api/info"), response, null);
+            fail("Expected TooManyRequestsException");
+        } catch (TooManyRequestsException e) {
+            assertEquals("100", response.getHeader("Retry-After"));
+            assertEquals("Rate limit exceeded, retry after 100 seconds", e.getMessage());
+        }
+        assertEquals(1L, metric("counter.rate_limit.rejected"));
+    }
+
+    @Test
+    public void eachCallerAndEndpointHasItsOwnLimit() throws Exception {
+
+        authenticate("user", "ROLE_USER");
+        interceptor.preHandle(request("/api/info"), new MockHttpServletResponse(), null);
+        interceptor.preHandle(request("/api/info"), new MockHttpServletResponse(), null);
+
+        assertTrue(interceptor.preHandle(request("/api/info/batch"), new MockHttpServletResponse(), null));
+        authenticate("other", "ROLE_USER");
+        assertTrue(interceptor.preHandle(request("/api/info"), new MockHttpServletResponse(), null));
+        assertEquals(3L, metric("gauge.rate_limit.buckets"));
+    }
+
+    @Test
+    public void adminIsNotLimited() throws Exception {
+
+        authenticate("admin", "ROLE_ADMIN", "ROLE_USER");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(interceptor.preHandle(request("/api/info"), new MockHttpServletResponse(), null));
+        }
+        assertEquals(10L, metric("counter.rate_limit.bypassed"));
+        assertEquals(0L, metric("counter.rate_limit.rejected"));
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private static void authenticate(String name, String... roles) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                name, "password", AuthorityUtils.createAuthorityList(roles)));
+    }
+
+    private Object metric(String name) {
+        for (Metric<?> metric : interceptor.metrics()) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue();
+            }
+        }
+        throw new AssertionError("No metric " + name);
+    }
+}
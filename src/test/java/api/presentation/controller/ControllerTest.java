@@ -1,16 +1,38 @@
 package api.presentation.controller;
 
+import api.JacksonConfig;
 import api.business.Service;
+import api.business.model.BatchRequest;
+import api.business.model.BatchResponse;
+import api.business.model.Model;
 import api.business.model.Response;
 import api.common.exceptions.BadRequestException;
+import api.common.exceptions.ResourceNotFoundException;
+import api.common.exceptions.ServiceUnavailableException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +49,7 @@ public class ControllerTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
+        controller.objectMapper = new JacksonConfig().jacksonBuilder().build();
     }
 
     @Test(expected = BadRequestException.class)
@@ -61,4 +84,106 @@ public class ControllerTest {
         assertEquals("12345678901234567890", response.getHeaders().get("CorrelationId").iterator().next());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void asyncResultCarriesCorrelationId() {
+
+        Response body = new Response();
+        when(service.getInfoAsync("AB123456")).thenReturn(new AsyncResult<>(body));
+        DeferredResult<ResponseEntity<Response>> result = controller.getInfoAsync(CORRELATION_ID, "AB123456");
+
+        ResponseEntity<Response> response = (ResponseEntity<Response>) result.getResult();
+        assertEquals(body, response.getBody());
+        assertEquals(CORRELATION_ID, response.getHeaders().get("CorrelationId").iterator().next());
+    }
+
+    @Test
+    public void batchReportsInvalidIdsIndividually() {
+
+        when(service.getInfoBatch(anyCollectionOf(String.class))).thenReturn(new BatchResponse());
+        ResponseEntity<BatchResponse> response = controller.getInfoBatch(CORRELATION_ID,
+                new BatchRequest(Arrays.asList("AB123456", "XXXXX")));
+
+        assertEquals(400, response.getBody().getErrors().get("XXXXX").getStatus());
+        assertTrue(response.getBody().getResults().isEmpty());
+        assertEquals(CORRELATION_ID, response.getHeaders().get("CorrelationId").iterator().next());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void batchIsEmpty() {
+        controller.getInfoBatch(CORRELATION_ID, new BatchRequest(Collections.<String>emptyList()));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void batchIsTooLarge() {
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i <= controller.maxBatchIds; i++) {
+            ids.add("AB" + i);
+        }
+        try {
+            controller.getInfoBatch(CORRELATION_ID, new BatchRequest(ids));
+        } catch (BadRequestException bre) {
+            verifyZeroInteractions(service);
+            throw bre;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamWritesOneRowPerLine() throws IOException {
+
+        doAnswer(invocation -> {
+            Consumer<Model> consumer = (Consumer<Model>) invocation.getArguments()[1];
+            for (int i = 0; i < 3; i++) {
+                consumer.accept(Model.builder().name("name" + i).postcode("pc").build());
+            }
+            return null;
+        }).when(service).streamInfo(eq("AB123456"), any(Consumer.class));
+
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        controller.streamInfo(CORRELATION_ID, "AB123456", servletResponse);
+
+        String[] lines = servletResponse.getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"name\":\"name0\","));
+        assertTrue(lines[2].endsWith("\"postcode\":\"pc\"}"));
+        assertTrue(servletResponse.getContentType().startsWith("application/x-ndjson"));
+        assertEquals(CORRELATION_ID, servletResponse.getHeader("CorrelationId"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamFailureAfterFirstRowEndsWithErrorLine() throws IOException {
+
+        doAnswer(invocation -> {
+            Consumer<Model> consumer = (Consumer<Model>) invocation.getArguments()[1];
+            consumer.accept(Model.builder().name("name").build());
+            throw new ServiceUnavailableException("Unable to retrieve data");
+        }).when(service).streamInfo(eq("AB123456"), any(Consumer.class));
+
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        controller.streamInfo(CORRELATION_ID, "AB123456", servletResponse);
+
+        String[] lines = servletResponse.getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(200, servletResponse.getStatus());
+        assertEquals("{\"status\":503,\"error\":\"Service Unavailable\",\"message\":\"Unable to retrieve data\"}", lines[1]);
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    @SuppressWarnings("unchecked")
+    public void streamFailureBeforeFirstRowIsThrown() throws IOException {
+
+        doThrow(new ResourceNotFoundException("No data available for this id: AB123456"))
+                .when(service).streamInfo(eq("AB123456"), any(Consumer.class));
+
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        try {
+            controller.streamInfo(CORRELATION_ID, "AB123456", servletResponse);
+        } finally {
+            assertTrue(!servletResponse.isCommitted());
+        }
+    }
+}
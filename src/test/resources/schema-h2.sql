@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS info (
+    id VARCHAR(20) NOT NULL,
+    name VARCHAR(100),
+    address_line_1 VARCHAR(100),
+    address_line_2 VARCHAR(100),
+    address_line_3 VARCHAR(100),
+    address_line_4 VARCHAR(100),
+    address_line_5 VARCHAR(100),
+    postcode VARCHAR(10)
+);
+
+CREATE INDEX IF NOT EXISTS info_id ON info (id);
+
+DELETE FROM info;
+
+INSERT INTO info VALUES ('AB1', 'name', 'al1', 'al2', 'al3', 'al4', 'al5', 'pc');
+INSERT INTO info VALUES ('AB2', 'name', 'al1', 'al2', 'al3', 'al4', NULL, 'pc');
+INSERT INTO info VALUES ('AB2', 'other', 'bl1', 'bl2', 'bl3', NULL, NULL, 'pc2');
+INSERT INTO info VALUES ('AB3', 'name', 'cl1', 'cl2', 'cl3', 'cl4', 'cl5', 'pc3');